@@ -9,19 +9,28 @@
  ************************************************************************/
 package psoup;
 
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
 
 /**
  * This interface defines the methods that must be supported by each
- * component that can cause evolution within the gene pool.
+ * component that can cause evolution within the gene pool.  Evolution
+ * either runs until it is stopped or for a given number of generations
+ * or length of time, in which case it stops by itself and the returned
+ * future is completed with the statistics for the run.  The future is
+ * also completed if evolution is stopped early.
  *
  * @author Derk Norton
  */
 public interface Evolver {
 
     public void startEvolving(int threadCount);
+    public CompletableFuture<Statistics> evolve(int threadCount, long numberOfGenerations);
+    public CompletableFuture<Statistics> evolveFor(int threadCount, Duration duration);
     public void stopEvolving();
     public boolean isEvolving();
-    public int getNumberOfGenerations();
+    public long getNumberOfGenerations();
     public int getNumberOfActiveThreads();
 
 }
@@ -10,9 +10,9 @@
 package psoup;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import craterdog.smart.SmartObject;
-import craterdog.smart.SmartObjectMapper;
 import psoup.util.*;
 
 
@@ -20,17 +20,18 @@ import psoup.util.*;
  * This abstract class specifies that all genes must support being visited by
  * a gene visitor.  This allows them to be scanned and operated on in
  * various ways so that they can take on the role of data and program.
+ * Each gene caches its species id and the number of genes it contains, so
+ * any visitor that adds, removes or reorders the children of a gene must
+ * invalidate the species id of that gene and of every gene above it in the
+ * creature.  Genes are written out and read back by a gene serializer and
+ * deserializer that handle creatures of any depth.
  *
  * @author Derk Norton
  */
+@JsonSerialize(using = GeneSerializer.class)
+@JsonDeserialize(using = GeneDeserializer.class)
 public abstract class Gene extends SmartObject<Gene> {
 
-    static private final SmartObjectMapper mapper = new SmartObjectMapper();
-
-    static {
-        mapper.addMixIn(craterdog.primitives.Probability.class, UseNullAsValueMixIn.class);
-    }
-
     public Gene(String geneType) {
         this.geneType = geneType;
     }
@@ -38,15 +39,52 @@ public abstract class Gene extends SmartObject<Gene> {
     public abstract void accept(GeneVisitor visitor);
 
     @JsonIgnore
-    public int getSpeciesId() {
-        try {
-            return mapper.writeValueAsString(this).hashCode();
-        } catch (JsonProcessingException e) {
-            throw new RuntimeException("Unable to calulate speciesId for genes.", e);
+    public long getSpeciesId() {
+        // the species id is cached until the structure of the gene changes
+        if (cachedSpeciesId == 0L) {
+            analyzeStructure();
+        }
+        return cachedSpeciesId;
+    }
+
+
+    @JsonIgnore
+    public int getNumberOfGenes() {
+        // the number of genes is cached along with the species id
+        if (cachedSpeciesId == 0L) {
+            analyzeStructure();
+        }
+        return cachedNumberOfGenes;
+    }
+
+
+    public void invalidateSpeciesId() {
+        cachedSpeciesId = 0L;
+    }
+
+
+    public boolean hasSpeciesId() {
+        return cachedSpeciesId != 0L;
+    }
+
+
+    private void analyzeStructure() {
+        // any unhashed genes below this one are handed back and hashed first
+        SpeciesHasher hasher = new SpeciesHasher();
+        Gene gene = this;
+        while (gene != null) {
+            long speciesId = hasher.hashCreature(gene);
+            if (speciesId != 0L) {
+                gene.cachedSpeciesId = speciesId;
+                gene.cachedNumberOfGenes = hasher.getNumberOfGenes();
+            }
+            gene = hasher.nextGene();
         }
     }
 
 
     public final String geneType;
+    private long cachedSpeciesId;
+    private int cachedNumberOfGenes;
 
 }
@@ -10,33 +10,58 @@
 package psoup;
 
 import craterdog.primitives.Probability;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 
 /**
  * This interface defines the methods the must be implemented
  * by a gene pool.  It specifies methods for adding and removing
- * creatures from the pool and accessing metrics about the pool.
+ * creatures from the pool and accessing metrics about the pool.  The
+ * bulk methods let a pool add or remove several creatures at once for
+ * the cost of a single lock acquisition.  A thread that needs a creature
+ * from a pool that is empty can take one, waiting until a creature is put
+ * back rather than polling the pool.
  *
  * @author Derk Norton
  */
 public interface Pool {
 
     public void initialize(int numberOfCreatures, Probability relativeComplexity, int maximumDepth, Probability temperature);
-    public Gene getCreature(int speciesId);
+    public Gene getCreature(long speciesId);
+    public Gene takeCreature(long timeout, TimeUnit unit) throws InterruptedException;
     public void putCreature(Gene creature);
-    public int pickRandomSpecies();
-    public int getCurrentNumberOfGenes();
-    public int getLowestNumberOfGenes();
-    public int getHighestNumberOfGenes();
-    public int getCurrentNumberOfSpecies();
-    public int getLowestNumberOfSpecies();
-    public int getHighestNumberOfSpecies();
-    public int getCurrentNumberOfCreatures();
-    public int getLowestNumberOfCreatures();
-    public int getHighestNumberOfCreatures();
+    public long pickRandomSpecies();
+    public long getCurrentNumberOfGenes();
+    public long getLowestNumberOfGenes();
+    public long getHighestNumberOfGenes();
+    public long getCurrentNumberOfSpecies();
+    public long getLowestNumberOfSpecies();
+    public long getHighestNumberOfSpecies();
+    public long getCurrentNumberOfCreatures();
+    public long getLowestNumberOfCreatures();
+    public long getHighestNumberOfCreatures();
     public void resetWaterMarks();
     public Probability getTemperature();
     public void setTemperature(Probability temperature);
     public boolean weightedCoinFlip(Probability probability);
 
+
+    public default List<Gene> getCreatures(long speciesId, int count) {
+        List<Gene> creatures = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Gene creature = getCreature(speciesId);
+            if (creature == null) break;
+            creatures.add(creature);
+        }
+        return creatures;
+    }
+
+
+    public default void putCreatures(Collection<Gene> creatures) {
+        for (Gene creature : creatures) {
+            putCreature(creature);
+        }
+    }
+
 }
@@ -12,6 +12,7 @@ package psoup;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import craterdog.smart.SmartObject;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 
 
 /**
@@ -29,8 +30,15 @@ public final class Species extends SmartObject<Species> {
 
 
     public Gene selectMember() {
-        int index = Math.round(((float) Math.random()) * (members.size() - 1));
-        Gene result = members.remove(index);
+        int size = members.size();
+        if (size == 0) return null;
+
+        // swap the selected member with the last member so the removal is constant time
+        int index = ThreadLocalRandom.current().nextInt(size);
+        int last = size - 1;
+        Gene result = members.get(index);
+        members.set(index, members.get(last));
+        members.remove(last);
         return result;
     }
 
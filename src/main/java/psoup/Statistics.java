@@ -0,0 +1,46 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package psoup;
+
+import craterdog.primitives.Probability;
+import craterdog.smart.SmartObject;
+
+
+/**
+ * This class captures the state of a gene pool at the end of a run of
+ * evolution along with the number of generations that the run processed
+ * and how long it took.
+ *
+ * @author Derk Norton
+ */
+public final class Statistics extends SmartObject<Statistics> {
+
+    public Statistics() {
+    }
+
+
+    public Statistics(long numberOfGenerations, long elapsedMilliseconds, Pool pool) {
+        this.numberOfGenerations = numberOfGenerations;
+        this.elapsedMilliseconds = elapsedMilliseconds;
+        this.numberOfGenes = pool.getCurrentNumberOfGenes();
+        this.numberOfSpecies = pool.getCurrentNumberOfSpecies();
+        this.numberOfCreatures = pool.getCurrentNumberOfCreatures();
+        this.temperature = pool.getTemperature();
+    }
+
+
+    public long numberOfGenerations;
+    public long elapsedMilliseconds;
+    public long numberOfGenes;
+    public long numberOfSpecies;
+    public long numberOfCreatures;
+    public Probability temperature;
+
+}
@@ -0,0 +1,256 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package psoup.engine;
+
+import craterdog.primitives.Probability;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import psoup.*;
+
+
+/**
+ * This class wraps the gene pool used by a processor and holds on to the
+ * creatures that the processor puts back into the pool until the end of
+ * the generation, when they are all returned to the pool at once.  A
+ * request for a specific species is satisfied from the held creatures
+ * when possible so that pieces chopped off earlier in a generation can be
+ * reused without going back to the pool.  The held creatures are indexed
+ * by their species ids in a small open addressing table, and those of the
+ * same species are chained together, so a request never scans the held
+ * creatures.  This class is not thread-safe.
+ *
+ * @author Derk Norton
+ */
+final class BufferedPool implements Pool {
+
+    BufferedPool(Pool pool) {
+        this.pool = pool;
+        this.buffer = new ArrayList<>();
+        this.batch = new ArrayList<>();
+        this.previous = new int[INITIAL_CAPACITY];
+        this.keys = new long[INITIAL_CAPACITY];
+        this.heads = new int[INITIAL_CAPACITY];
+        Arrays.fill(heads, UNUSED);
+    }
+
+
+    void flush() {
+        if (held > 0) {
+            // the creatures that were taken back during the generation left gaps in the buffer
+            for (Gene creature : buffer) {
+                if (creature != null) batch.add(creature);
+            }
+            pool.putCreatures(batch);
+            batch.clear();
+        }
+        clear();
+    }
+
+
+    @Override
+    public void initialize(int numberOfCreatures, Probability relativeComplexity, int maximumDepth, Probability temperature) {
+        clear();
+        pool.initialize(numberOfCreatures, relativeComplexity, maximumDepth, temperature);
+    }
+
+
+    @Override
+    public Gene getCreature(long speciesId) {
+        // take the most recently held creature of the same species first
+        if (speciesId != 0L && held > 0) {
+            int slot = slot(speciesId);
+            int index = heads[slot];
+            if (index >= 0) {
+                heads[slot] = previous[index];
+                held--;
+                return buffer.set(index, null);
+            }
+        }
+        return pool.getCreature(speciesId);
+    }
+
+
+    @Override
+    public Gene takeCreature(long timeout, TimeUnit unit) throws InterruptedException {
+        // the held creatures must be returned first or the wait might never end
+        flush();
+        return pool.takeCreature(timeout, unit);
+    }
+
+
+    @Override
+    public void putCreature(Gene creature) {
+        // the species id is cached by the creature so the pool does not compute it again
+        long speciesId = creature.getSpeciesId();
+        int index = buffer.size();
+        buffer.add(creature);
+        if (index == previous.length) {
+            previous = Arrays.copyOf(previous, 2 * index);
+        }
+
+        // chain the creature to the other held creatures of its species
+        int slot = slot(speciesId);
+        if (heads[slot] == UNUSED) {
+            if (2 * (numberOfSpecies + 1) > keys.length) {
+                rehash(2 * keys.length);
+                slot = slot(speciesId);
+            }
+            keys[slot] = speciesId;
+            heads[slot] = END;
+            numberOfSpecies++;
+        }
+        previous[index] = heads[slot];
+        heads[slot] = index;
+        held++;
+    }
+
+
+    @Override
+    public void putCreatures(Collection<Gene> creatures) {
+        for (Gene creature : creatures) {
+            putCreature(creature);
+        }
+    }
+
+
+    @Override
+    public long pickRandomSpecies() {
+        return pool.pickRandomSpecies();
+    }
+
+
+    @Override
+    public long getCurrentNumberOfGenes() {
+        return pool.getCurrentNumberOfGenes();
+    }
+
+
+    @Override
+    public long getLowestNumberOfGenes() {
+        return pool.getLowestNumberOfGenes();
+    }
+
+
+    @Override
+    public long getHighestNumberOfGenes() {
+        return pool.getHighestNumberOfGenes();
+    }
+
+
+    @Override
+    public long getCurrentNumberOfSpecies() {
+        return pool.getCurrentNumberOfSpecies();
+    }
+
+
+    @Override
+    public long getLowestNumberOfSpecies() {
+        return pool.getLowestNumberOfSpecies();
+    }
+
+
+    @Override
+    public long getHighestNumberOfSpecies() {
+        return pool.getHighestNumberOfSpecies();
+    }
+
+
+    @Override
+    public long getCurrentNumberOfCreatures() {
+        return pool.getCurrentNumberOfCreatures();
+    }
+
+
+    @Override
+    public long getLowestNumberOfCreatures() {
+        return pool.getLowestNumberOfCreatures();
+    }
+
+
+    @Override
+    public long getHighestNumberOfCreatures() {
+        return pool.getHighestNumberOfCreatures();
+    }
+
+
+    @Override
+    public void resetWaterMarks() {
+        pool.resetWaterMarks();
+    }
+
+
+    @Override
+    public Probability getTemperature() {
+        return pool.getTemperature();
+    }
+
+
+    @Override
+    public void setTemperature(Probability temperature) {
+        pool.setTemperature(temperature);
+    }
+
+
+    @Override
+    public boolean weightedCoinFlip(Probability probability) {
+        return pool.weightedCoinFlip(probability);
+    }
+
+
+    private void clear() {
+        buffer.clear();
+        held = 0;
+        if (numberOfSpecies > 0) {
+            Arrays.fill(heads, UNUSED);
+            numberOfSpecies = 0;
+        }
+    }
+
+
+    private int slot(long speciesId) {
+        // probe linearly from the hashed slot until the species or an unused slot is found
+        int mask = keys.length - 1;
+        int slot = (int) ((speciesId * 0x9e3779b97f4a7c15L) >>> 32) & mask;
+        while (heads[slot] != UNUSED && keys[slot] != speciesId) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldHeads = heads;
+        keys = new long[capacity];
+        heads = new int[capacity];
+        Arrays.fill(heads, UNUSED);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldHeads[i] != UNUSED) {
+                int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                heads[slot] = oldHeads[i];
+            }
+        }
+    }
+
+
+    private final Pool pool;
+    private final List<Gene> buffer;  // the held creatures with gaps where some were taken back
+    private final List<Gene> batch;
+    private int[] previous;  // the index of the previously held creature of the same species
+    private long[] keys;  // the species ids of the table
+    private int[] heads;  // the index of the most recently held creature of each species
+    private int numberOfSpecies;
+    private int held;
+    static private final int INITIAL_CAPACITY = 16;  // must be a power of two
+    static private final int END = -1;  // the end of a chain
+    static private final int UNUSED = -2;  // a slot without a species
+
+}
@@ -13,6 +13,7 @@ import psoup.GeneVisitor;
 import craterdog.primitives.Probability;
 import psoup.*;
 import psoup.genes.*;
+import psoup.util.*;
 
 
 /**
@@ -20,40 +21,50 @@ import psoup.genes.*;
  * creature's genes based on a specifc probability that is associated with
  * this chopper.  The probability is weighted based on the temperature of
  * the gene pool.  The actual chopping depends on the type of gene the
- * chopper is visiting.
+ * chopper is visiting.  A chopper can be reset with a new probability so
+ * that a processor can reuse the same chopper for each chop gene.  The
+ * children of a gene are chopped up before they are chopped off using a
+ * work stack rather than recursion, so creatures of any depth can be
+ * chopped.
  *
  * @author Derk Norton
  */
 public final class Chopper implements GeneVisitor {
 
+    public Chopper(Pool pool) {
+        this(pool, null);
+    }
+
+
     public Chopper(Pool pool, Probability probability) {
         this.pool = pool;
         this.probability = probability;
     }
 
 
+    public void reset(Probability probability) {
+        this.probability = probability;
+    }
+
+
     @Override
     public void visit(Branch gene) {
-        // chop up the left branch
-        Gene left = gene.leftBranch;
-        if (left != null) {
-            left.accept(this);
-            if (pool.weightedCoinFlip(probability)) {
-                gene.leftBranch = null;
-                pool.putCreature(left);
-            }
+        if (work.tag() == LEAVING) {
+            leave(gene);
+            return;
         }
 
-        // chop up the right branch
+        // chop up the branches before chopping them off
+        work.push(gene, LEAVING);
         Gene right = gene.rightBranch;
         if (right != null) {
-            right.accept(this);
-            if (pool.weightedCoinFlip(probability)) {
-                gene.rightBranch = null;
-                pool.putCreature(right);
-            }
+            work.push(right);
         }
-
+        Gene left = gene.leftBranch;
+        if (left != null) {
+            work.push(left);
+        }
+        work.traverse(this);
     }
 
 
@@ -95,11 +106,59 @@ public final class Chopper implements GeneVisitor {
 
     @Override
     public void visit(Sequence gene) {
+        if (work.tag() == LEAVING) {
+            leave(gene);
+            return;
+        }
+
+        // chop up the items before chopping them off
+        work.push(gene, LEAVING);
+        for (int i = gene.genes.size() - 1; i >= 0; i--) {
+            work.push(gene.genes.get(i));
+        }
+        work.traverse(this);
+    }
+
+
+    private void leave(Branch gene) {
+        // chop off the left branch
+        Gene left = gene.leftBranch;
+        if (left != null) {
+            if (!left.hasSpeciesId()) {
+                gene.invalidateSpeciesId();
+            }
+            if (pool.weightedCoinFlip(probability)) {
+                gene.leftBranch = null;
+                gene.invalidateSpeciesId();
+                pool.putCreature(left);
+            }
+        }
+
+        // chop off the right branch
+        Gene right = gene.rightBranch;
+        if (right != null) {
+            if (!right.hasSpeciesId()) {
+                gene.invalidateSpeciesId();
+            }
+            if (pool.weightedCoinFlip(probability)) {
+                gene.rightBranch = null;
+                gene.invalidateSpeciesId();
+                pool.putCreature(right);
+            }
+        }
+    }
+
+
+    private void leave(Sequence gene) {
+        // chop off the items
         for (int i = 0; i < gene.genes.size(); i++) {
             Gene item = gene.genes.get(i);
-            item.accept(this);
+            if (!item.hasSpeciesId()) {
+                gene.invalidateSpeciesId();
+            }
             if (pool.weightedCoinFlip(probability)) {
                 gene.genes.remove(i--);
+                gene.invalidateSpeciesId();
                 pool.putCreature(item);
             }
         }
@@ -107,7 +166,9 @@ public final class Chopper implements GeneVisitor {
 
 
     private final Pool pool;
-    private final Probability probability;
+    private Probability probability;
+    private final WorkStack work = new WorkStack();
+    static private final int LEAVING = 1;  // the children of the gene have been chopped up
 
 
 }
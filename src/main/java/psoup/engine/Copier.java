@@ -23,7 +23,11 @@ import psoup.util.*;
  * creature's genes based on a specifc probability that is associated with
  * this copier.  The probability is weighted based on the temperature of
  * the gene pool.  The actual copying depends on the type of gene the
- * copier is visiting.
+ * copier is visiting.  A copier can be reset with a new probability so
+ * that a processor can reuse the same copier for each copy gene.  Each
+ * copied gene is put in its place under the copy of its parent before its
+ * own children are copied, using a work stack rather than recursion, so
+ * creatures of any depth can be copied.
  *
  * @author Derk Norton
  */
@@ -36,6 +40,11 @@ public final class Copier implements GeneVisitor {
     }
 
 
+    public Copier(Pool pool) {
+        this(pool, null);
+    }
+
+
     public Copier(Pool pool, Probability probability) {
         this.pool = pool;
         this.probability = probability;
@@ -43,6 +52,12 @@ public final class Copier implements GeneVisitor {
     }
 
 
+    public void reset(Probability probability) {
+        this.probability = probability;
+        this.copy = null;
+    }
+
+
     @Override
     public void visit(Branch gene) {
         // copy the gene itself
@@ -51,21 +66,19 @@ public final class Copier implements GeneVisitor {
             // copy the probability
             creature.probability = gene.probability;
 
-            // copy the left branch
+            // copy the left and right branches once the copy is in place
             Gene left = gene.leftBranch;
-            if (left != null && pool.weightedCoinFlip(probability)) {
-                left.accept(this);
-                creature.leftBranch = copy;
-            }
-
-            // copy the right branch
+            boolean copyLeft = left != null && pool.weightedCoinFlip(probability);
             Gene right = gene.rightBranch;
-            if (right != null && pool.weightedCoinFlip(probability)) {
-                right.accept(this);
-                creature.rightBranch = copy;
+            boolean copyRight = right != null && pool.weightedCoinFlip(probability);
+            if (copyRight) {
+                schedule(right, creature, RIGHT);
+            }
+            if (copyLeft) {
+                schedule(left, creature, LEFT);
             }
         }
-        copy = creature;
+        place(creature);
     }
 
 
@@ -75,7 +88,7 @@ public final class Copier implements GeneVisitor {
         if (creature != null) {
             creature.probability = gene.probability;
         }
-        copy = creature;
+        place(creature);
     }
 
 
@@ -85,7 +98,7 @@ public final class Copier implements GeneVisitor {
         if (creature != null) {
             creature.probability = gene.probability;
         }
-        copy = creature;
+        place(creature);
     }
 
 
@@ -95,7 +108,7 @@ public final class Copier implements GeneVisitor {
         if (creature != null) {
             creature.speciesId = gene.speciesId;
         }
-        copy = creature;
+        place(creature);
     }
 
 
@@ -105,7 +118,7 @@ public final class Copier implements GeneVisitor {
         if (creature != null) {
             creature.probability = gene.probability;
         }
-        copy = creature;
+        place(creature);
     }
 
 
@@ -115,7 +128,7 @@ public final class Copier implements GeneVisitor {
         if (creature != null) {
             creature.probability = gene.probability;
         }
-        copy = creature;
+        place(creature);
     }
 
 
@@ -126,7 +139,7 @@ public final class Copier implements GeneVisitor {
         if (creature != null) {
             put = (Put) creature;
         }
-        copy = put;
+        place(put);
     }
 
 
@@ -135,21 +148,74 @@ public final class Copier implements GeneVisitor {
         // copy the gene itself
         Sequence creature = (Sequence) pool.getCreature(GenePool.SEQUENCE_ID);
         if (creature != null) {
-            // copy its children
-            for (Gene item : gene.genes) {
-                item.accept(this);
-                if (copy != null) {
-                    creature.genes.add(copy);
-                }
+            // copy its children in order once the copy is in place
+            for (int i = gene.genes.size() - 1; i >= 0; i--) {
+                schedule(gene.genes.get(i), creature, ITEM);
+            }
+        }
+        place(creature);
+    }
+
+
+    private void schedule(Gene gene, Gene parent, int slot) {
+        work.push(gene, slot);
+        parents.push(parent);
+    }
+
+
+    private void place(Gene creature) {
+        // the copy of the creature itself is the result, so copy the genes below it
+        if (parent == null) {
+            copy = creature;
+            copyChildren();
+            return;
+        }
+
+        // the copy of any other gene goes under the copy of its parent
+        if (creature != null) {
+            switch (slot) {
+                case LEFT:
+                    ((Branch) parent).leftBranch = creature;
+                    break;
+                case RIGHT:
+                    ((Branch) parent).rightBranch = creature;
+                    break;
+                default:
+                    ((Sequence) parent).genes.add(creature);
+                    break;
+            }
+            parent.invalidateSpeciesId();
+        }
+    }
+
+
+    private void copyChildren() {
+        try {
+            while (!work.empty()) {
+                Gene gene = work.pop();
+                slot = work.tag();
+                parent = parents.pop();
+                gene.accept(this);
             }
+        } finally {
+            // don't leave a failed copy behind for the next one
+            work.clear();
+            parents.clear();
+            parent = null;
         }
-        copy = creature;
     }
 
 
     private final Pool pool;
-    private final Probability probability;
+    private Probability probability;
+    private final WorkStack work = new WorkStack();
+    private final WorkStack parents = new WorkStack();
+    private Gene parent;  // the copy that the gene being copied goes under
+    private int slot;  // where the gene being copied goes under its parent
     public Gene copy;
+    static private final int LEFT = 1;
+    static private final int RIGHT = 2;
+    static private final int ITEM = 3;
 
 
 }
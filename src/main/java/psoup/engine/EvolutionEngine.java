@@ -9,6 +9,11 @@
  ************************************************************************/
 package psoup.engine;
 
+import java.lang.management.*;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.slf4j.ext.XLogger;
 import org.slf4j.ext.XLoggerFactory;
 import psoup.*;
@@ -18,7 +23,10 @@ import psoup.util.*;
 /**
  * This class acts on a gene pool as an "evolution agent".  It provides
  * the physical processes that allow one creature to manipulate another
- * creature's genes.
+ * creature's genes.  The processors are run as tasks on an executor
+ * service, either one that the engine creates or one that it is given.
+ * A run can be limited to a number of generations or a length of time,
+ * and the engine can be paused and resumed between generations.
  *
  * @author Derk Norton
  */
@@ -26,9 +34,17 @@ public final class EvolutionEngine implements Evolver {
 
     static XLogger logger = XLoggerFactory.getXLogger(EvolutionEngine.class);
 
+    static public final int AUTOMATIC = 0;
+
 
     public EvolutionEngine(Pool pool) {
+        this(pool, null);
+    }
+
+
+    public EvolutionEngine(Pool pool, ExecutorService executor) {
         this.pool = pool;
+        this.executor = executor;
         this.evolving = false;
         this.generationCounter = new SharedCounter();
     }
@@ -36,55 +52,264 @@ public final class EvolutionEngine implements Evolver {
 
     @Override
     public synchronized void startEvolving(int threadCount) {
+        startEvolving(threadCount, GenerationBudget.unlimited());
+    }
+
+
+    @Override
+    public synchronized CompletableFuture<Statistics> evolve(int threadCount, long numberOfGenerations) {
+        return evolve(threadCount, GenerationBudget.ofGenerations(numberOfGenerations));
+    }
+
+
+    @Override
+    public synchronized CompletableFuture<Statistics> evolveFor(int threadCount, Duration duration) {
+        return evolve(threadCount, GenerationBudget.ofDuration(duration));
+    }
+
+
+    private CompletableFuture<Statistics> evolve(int threadCount, GenerationBudget budget) {
+        CompletableFuture<Statistics> future = new CompletableFuture<>();
+        if (evolving) {
+            future.completeExceptionally(new IllegalStateException("The engine is already evolving."));
+            return future;
+        }
+        results = future;
+        startEvolving(threadCount, budget);
+
+        // the processors cannot wait for themselves to finish so stop from another thread
+        budget.exhausted().thenRunAsync(() -> finishEvolving(budget));
+        return future;
+    }
+
+
+    private void startEvolving(int threadCount, GenerationBudget budget) {
         if (!evolving) {
             logger.info("Starting evolution...");
             evolving = true;
 
             // reset any existing state
             generationCounter.resetCounter();
-            if (processors != null) {
-                processors.destroy();
+            this.startTime = System.nanoTime();
+            this.budget = budget;
+            budget.start(startTime);
+            this.gate = new PauseGate();
+
+            // an automatic thread count starts with one processor per core
+            boolean automatic = threadCount == AUTOMATIC;
+            int numberOfCores = Runtime.getRuntime().availableProcessors();
+            int maximumThreads = automatic ? numberOfCores * MAXIMUM_THREADS_PER_CORE : threadCount;
+
+            // use a new set of low priority threads unless an executor service was provided
+            ExecutorService service = executor;
+            if (service == null) {
+                AtomicInteger number = new AtomicInteger();
+                service = Executors.newFixedThreadPool(maximumThreads, runnable -> {
+                    Thread thread = new Thread(runnable, "Processor " + number.getAndIncrement());
+                    thread.setPriority(PROCESSOR_PRIORITY);
+                    return thread;
+                });
             }
+            threads = service;
 
-            // create a new set of low priority processors (running threads)
-            processors = new ThreadGroup("Evolution Engine");
-            processors.setMaxPriority(2);
-            for (int i = 0; i < threadCount; i++) {
-                Thread thread = new ProcessingThread(processors, "Processor " + i, pool, generationCounter);
-                thread.start();
+            // start the processors
+            processors = new ProcessorGroup(service);
+            tasks = new ArrayDeque<>();
+            int initialThreads = automatic ? numberOfCores : threadCount;
+            for (int i = 0; i < initialThreads; i++) {
+                addProcessor();
             }
+
+            // retune the number of processors at regular intervals
+            if (automatic) {
+                ThreadTuner tuner = new ThreadTuner(1, maximumThreads, initialThreads);
+                this.tuner = tuner;
+                enableContentionMonitoring();
+                startSampling();
+                tuning = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "Processor Tuner");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                tuning.scheduleAtFixedRate(() -> tune(tuner), TUNING_INTERVAL, TUNING_INTERVAL, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+
+    private void addProcessor() {
+        ProcessingTask task = new ProcessingTask(pool, generationCounter, budget, gate);
+        tasks.push(task);
+        processors.submit(task);
+    }
+
+
+    private void removeProcessor() {
+        tasks.pop().retire();
+    }
+
+
+    private synchronized void tune(ThreadTuner tuner) {
+        // the engine may have been stopped and restarted since the tuner was scheduled
+        if (!evolving || this.tuner != tuner) return;
+
+        // a paused interval says nothing about the throughput
+        if (gate.isPaused()) {
+            tuner.reset();
+            startSampling();
+            return;
+        }
+
+        // measure the throughput and lock contention since the last sample
+        long now = System.nanoTime();
+        long generations = generationCounter.getCurrentValue();
+        double seconds = (now - sampleTime) / 1.0e9;
+        double throughput = (generations - sampleGenerations) / seconds;
+        double contention = measureContention(now - sampleTime);
+        sampleTime = now;
+        sampleGenerations = generations;
+
+        // add or retire processors to match the tuned count
+        int current = tasks.size();
+        int target = tuner.adjust(throughput, contention);
+        if (target != current) {
+            logger.debug("Changing the number of processors from {} to {} at {} generations per second...",
+                    current, target, Math.round(throughput));
+        }
+        while (tasks.size() < target) {
+            addProcessor();
+        }
+        while (tasks.size() > target) {
+            removeProcessor();
         }
     }
 
 
+    private void startSampling() {
+        sampleTime = System.nanoTime();
+        sampleGenerations = generationCounter.getCurrentValue();
+        blockedTimes = new HashMap<>();
+        measureContention(0L);
+    }
+
+
+    private void enableContentionMonitoring() {
+        // the blocked times are only available if the virtual machine is measuring them
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if (threadBean.isThreadContentionMonitoringSupported()) {
+            previouslyMonitoring = threadBean.isThreadContentionMonitoringEnabled();
+            threadBean.setThreadContentionMonitoringEnabled(true);
+            monitoring = true;
+        }
+    }
+
+
+    private void restoreContentionMonitoring() {
+        // the setting applies to the whole virtual machine so put it back the way it was
+        if (monitoring) {
+            ManagementFactory.getThreadMXBean().setThreadContentionMonitoringEnabled(previouslyMonitoring);
+            monitoring = false;
+        }
+    }
+
+
+    private double measureContention(long elapsed) {
+        if (!monitoring) return 0.0;
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+        // sum the time each processor spent blocked since the last sample
+        long blocked = 0L;
+        int numberOfThreads = 0;
+        Map<Long, Long> times = new HashMap<>();
+        for (ThreadInfo info : threadBean.getThreadInfo(processors.threadIds())) {
+            if (info == null || info.getBlockedTime() < 0L) continue;
+            long id = info.getThreadId();
+            long time = info.getBlockedTime();
+            Long last = blockedTimes.get(id);
+            if (last != null) {
+                blocked += time - last;
+                numberOfThreads++;
+            }
+            times.put(id, time);
+        }
+        blockedTimes = times;
+        if (numberOfThreads == 0 || elapsed <= 0L) return 0.0;
+        return blocked / (double) (TimeUnit.NANOSECONDS.toMillis(elapsed) * numberOfThreads);
+    }
+
+
     @Override
     public synchronized void stopEvolving() {
         if (evolving) {
             logger.info("Stopping evolution...");
 
-            // interrupt the running processors
-            processors.interrupt();
-
-            // wait for each thread to finish
-            int numberOfThreads = processors.activeCount();
-            Thread[] threads = new Thread[numberOfThreads];
-            processors.enumerate(threads);
-            for (int i = 0; i < numberOfThreads; i++) {
-                Thread thread = threads[i];
-                if (thread != null) {
-                    try {
-                        thread.join();
-                    } catch (InterruptedException e) {
-                        break;
-                    }
-                }
+            // stop retuning the number of processors
+            if (tuning != null) {
+                tuning.shutdownNow();
+                tuning = null;
+                tuner = null;
+            }
+            restoreContentionMonitoring();
+
+            // interrupt the running processors and wait for them to finish
+            try {
+                processors.stop();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            // only shut down the threads that were created by this engine
+            if (executor == null) {
+                threads.shutdown();
             }
 
             evolving = false;
+
+            // report the statistics for a limited run
+            if (results != null) {
+                long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+                results.complete(new Statistics(generationCounter.getCurrentValue(), elapsed, pool));
+                results = null;
+            }
+        }
+    }
+
+
+    private synchronized void finishEvolving(GenerationBudget budget) {
+        // the engine may have been stopped and restarted since the budget was exhausted
+        if (evolving && this.budget == budget) {
+            stopEvolving();
+        }
+    }
+
+
+    public synchronized void pause() {
+        if (evolving && !gate.isPaused()) {
+            logger.info("Pausing evolution...");
+
+            // wait for the processors to finish their current generations
+            try {
+                gate.pause();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+
+    public synchronized void resume() {
+        if (evolving && gate.isPaused()) {
+            logger.info("Resuming evolution...");
+            gate.resume();
         }
     }
 
 
+    public synchronized boolean isPaused() {
+        return evolving && gate.isPaused();
+    }
+
+
     @Override
     public synchronized boolean isEvolving() {
         return evolving;
@@ -92,21 +317,38 @@ public final class EvolutionEngine implements Evolver {
 
 
     @Override
-    public synchronized int getNumberOfGenerations() {
+    public synchronized long getNumberOfGenerations() {
         return generationCounter.getCurrentValue();
     }
 
 
     @Override
     public synchronized int getNumberOfActiveThreads() {
-        return processors.activeCount();
+        return processors == null ? 0 : processors.activeCount();
     }
 
 
     private final Pool pool;
+    private final ExecutorService executor;
     private boolean evolving;
     private final SharedCounter generationCounter;
-    private ThreadGroup processors;
+    private ExecutorService threads;
+    private ProcessorGroup processors;
+    private Deque<ProcessingTask> tasks;
+    private ThreadTuner tuner;
+    private ScheduledExecutorService tuning;
+    private long sampleTime;  // nanoseconds
+    private long sampleGenerations;
+    private Map<Long, Long> blockedTimes;  // milliseconds by thread id
+    private boolean monitoring;  // whether this engine turned on contention monitoring
+    private boolean previouslyMonitoring;  // the setting before this engine turned it on
+    private GenerationBudget budget;
+    private PauseGate gate;
+    private CompletableFuture<Statistics> results;
+    private long startTime;  // nanoseconds
+    static private final int PROCESSOR_PRIORITY = 2;
+    static private final int MAXIMUM_THREADS_PER_CORE = 4;
+    static private final long TUNING_INTERVAL = 500;  // milliseconds
 
 
 }
@@ -0,0 +1,324 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package psoup.engine;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import psoup.*;
+import psoup.util.*;
+
+
+/**
+ * This class acts on a gene pool as an "evolution agent" using a fork/join
+ * pool rather than dedicated processing threads.  Each task processes a
+ * small batch of generations and then forks a new task to take its place,
+ * so the work stays spread across the worker queues.  A worker whose
+ * creatures happen to be large falls behind the others, which then steal
+ * the tasks waiting in its queue, so no worker sits idle while another
+ * has work queued.  Each worker thread keeps its own processor.  A run
+ * that is limited to a number of generations or a length of time stops
+ * forking new tasks once its generation budget is exhausted.  A task that
+ * has to wait, for a creature when the pool is empty or for the end of a
+ * run whose remaining generations are all held by other tasks, waits
+ * through a managed blocker so the fork/join pool can keep its other
+ * workers busy in the meantime.
+ *
+ * @author Derk Norton
+ */
+public final class ForkJoinEngine implements Evolver {
+
+    static XLogger logger = XLoggerFactory.getXLogger(ForkJoinEngine.class);
+
+
+    public ForkJoinEngine(Pool pool) {
+        this.pool = pool;
+        this.evolving = false;
+        this.generationCounter = new SharedCounter();
+    }
+
+
+    @Override
+    public synchronized void startEvolving(int threadCount) {
+        startEvolving(threadCount, GenerationBudget.unlimited());
+    }
+
+
+    @Override
+    public synchronized CompletableFuture<Statistics> evolve(int threadCount, long numberOfGenerations) {
+        return evolve(threadCount, GenerationBudget.ofGenerations(numberOfGenerations));
+    }
+
+
+    @Override
+    public synchronized CompletableFuture<Statistics> evolveFor(int threadCount, Duration duration) {
+        return evolve(threadCount, GenerationBudget.ofDuration(duration));
+    }
+
+
+    private CompletableFuture<Statistics> evolve(int threadCount, GenerationBudget budget) {
+        CompletableFuture<Statistics> future = new CompletableFuture<>();
+        if (evolving) {
+            future.completeExceptionally(new IllegalStateException("The engine is already evolving."));
+            return future;
+        }
+        results = future;
+        startEvolving(threadCount, budget);
+
+        // the workers cannot wait for themselves to finish so stop from another thread
+        budget.exhausted().thenRunAsync(() -> finishEvolving(budget));
+        return future;
+    }
+
+
+    private void startEvolving(int threadCount, GenerationBudget budget) {
+        if (!evolving) {
+            logger.info("Starting evolution...");
+            evolving = true;
+            running = true;
+
+            // reset any existing state
+            generationCounter.resetCounter();
+            this.startTime = System.nanoTime();
+            this.budget = budget;
+            budget.start(startTime);
+            processors = ThreadLocal.withInitial(() -> new Processor(pool));
+
+            // create the workers and give each of them a few tasks to start with
+            int parallelism = threadCount > 0 ? threadCount : Runtime.getRuntime().availableProcessors();
+            workers = new ForkJoinPool(parallelism);
+            for (int i = 0; i < parallelism * TASKS_PER_WORKER; i++) {
+                workers.execute(new GenerationTask(budget));
+            }
+        }
+    }
+
+
+    @Override
+    public synchronized void stopEvolving() {
+        if (evolving) {
+            logger.info("Stopping evolution...");
+
+            // let the running tasks finish their batches without forking new ones
+            running = false;
+            workers.shutdown();
+            try {
+                if (!workers.awaitTermination(STOP_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                    workers.shutdownNow();
+                    workers.awaitTermination(STOP_TIMEOUT, TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException e) {
+                workers.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+
+            evolving = false;
+
+            // report the statistics for a limited run
+            if (results != null) {
+                long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+                results.complete(new Statistics(getNumberOfGenerations(), elapsed, pool));
+                results = null;
+            }
+        }
+    }
+
+
+    private synchronized void finishEvolving(GenerationBudget budget) {
+        // the engine may have been stopped and restarted since the budget was exhausted
+        if (evolving && this.budget == budget) {
+            stopEvolving();
+        }
+    }
+
+
+    @Override
+    public synchronized boolean isEvolving() {
+        return evolving;
+    }
+
+
+    @Override
+    public synchronized long getNumberOfGenerations() {
+        return generationCounter.getCurrentValue();
+    }
+
+
+    @Override
+    public synchronized int getNumberOfActiveThreads() {
+        return workers == null ? 0 : workers.getActiveThreadCount();
+    }
+
+
+    /**
+     * This class processes a batch of generations using the processor of
+     * the worker thread that runs it and then forks its successor.
+     */
+    private final class GenerationTask extends RecursiveAction {
+
+        GenerationTask(GenerationBudget budget) {
+            this.budget = budget;
+        }
+
+
+        @Override
+        protected void compute() {
+            Processor processor = processors.get();
+            int count = 0;
+            try {
+                boolean starved = false;
+                for (int i = 0; i < BATCH_SIZE && running; i++) {
+                    // the remaining generations may all be held by other tasks
+                    if (!budget.tryAcquire()) {
+                        starved = true;
+                        break;
+                    }
+                    boolean completed = false;
+                    try {
+                        completed = processGeneration(processor);
+                        if (completed) count++;
+                    } finally {
+                        // a generation that was not completed goes back into the budget
+                        if (!completed) budget.refund();
+                    }
+                }
+
+                // wait for the run to end or a generation to be refunded rather than forking empty tasks
+                if (starved && running) {
+                    ForkJoinPool.managedBlock(new BudgetBlocker(budget));
+                }
+            } catch (InterruptedException e) {
+                // the workers are being shut down so keep the interrupt for the pool to see
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // a faulty generation must not stop the worker from picking up more tasks
+                logger.error("A generation failed with exception: {}", e);
+                processor.reset();
+            } finally {
+                generationCounter.increment(count);
+            }
+            if (running && !budget.exhausted().isDone()) {
+                new GenerationTask(budget).fork();
+            }
+        }
+
+
+        private boolean processGeneration(Processor processor) throws InterruptedException {
+            // wait briefly for a creature rather than spinning when the pool is empty
+            creatures.reset();
+            ForkJoinPool.managedBlock(creatures);
+            Gene creature = creatures.creature;
+            if (creature == null) return false;
+            creature.accept(processor);
+            pool.putCreature(creature);
+
+            // return the held creatures before the generation counts against the budget
+            processor.reset();
+            budget.complete();
+            return true;
+        }
+
+
+        private final GenerationBudget budget;
+        private final CreatureBlocker creatures = new CreatureBlocker();
+        static private final long serialVersionUID = 1L;
+
+    }
+
+
+    /**
+     * This class takes a creature from the pool for a task.  The fork/join
+     * pool only makes up for the blocked worker when the pool is empty and
+     * the task has to wait for a creature to be put back.
+     */
+    private final class CreatureBlocker implements ForkJoinPool.ManagedBlocker {
+
+        void reset() {
+            creature = null;
+            waited = false;
+        }
+
+
+        @Override
+        public boolean isReleasable() {
+            if (creature == null && !waited) {
+                creature = pool.getCreature(0L);
+            }
+            return creature != null || waited;
+        }
+
+
+        @Override
+        public boolean block() throws InterruptedException {
+            creature = pool.takeCreature(IDLE_TIMEOUT, TimeUnit.MILLISECONDS);
+            waited = true;
+            return true;
+        }
+
+
+        Gene creature;
+        private boolean waited;
+
+    }
+
+
+    /**
+     * This class waits for a generation budget to be exhausted.  It gives
+     * up after a while since a generation held by another task may yet be
+     * refunded.
+     */
+    static private final class BudgetBlocker implements ForkJoinPool.ManagedBlocker {
+
+        BudgetBlocker(GenerationBudget budget) {
+            this.budget = budget;
+        }
+
+
+        @Override
+        public boolean isReleasable() {
+            return waited || budget.exhausted().isDone();
+        }
+
+
+        @Override
+        public boolean block() throws InterruptedException {
+            try {
+                budget.exhausted().get(IDLE_TIMEOUT, TimeUnit.MILLISECONDS);
+            } catch (ExecutionException | TimeoutException e) {
+                // a successor will try to acquire a refunded generation
+            }
+            waited = true;
+            return true;
+        }
+
+
+        private final GenerationBudget budget;
+        private boolean waited;
+
+    }
+
+
+    private final Pool pool;
+    private boolean evolving;
+    private volatile boolean running;
+    private final SharedCounter generationCounter;
+    private ThreadLocal<Processor> processors;
+    private ForkJoinPool workers;
+    private GenerationBudget budget;
+    private CompletableFuture<Statistics> results;
+    private long startTime;  // nanoseconds
+    static private final int TASKS_PER_WORKER = 4;
+    static private final int BATCH_SIZE = 64;
+    static private final long IDLE_TIMEOUT = 100;  // milliseconds
+    static private final long STOP_TIMEOUT = 5000;  // milliseconds
+
+}
@@ -0,0 +1,83 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package psoup.engine;
+
+import java.util.Arrays;
+import psoup.*;
+
+
+/**
+ * This class implements the stack of creatures that a processor and its
+ * merger operate on.  The creatures are held in an array that doubles in
+ * size as needed up to a capacity limit.  Once the stack is full a push
+ * is refused, so the caller can put the creature back into the pool
+ * instead.  A pop must only be called on a stack that is not empty.  The
+ * stack is confined to the thread of its processor so, unlike a
+ * java.util.Stack, none of its operations synchronize.  This class is not
+ * thread-safe.
+ *
+ * @author Derk Norton
+ */
+public final class GeneStack {
+
+    public GeneStack() {
+        this(DEFAULT_CAPACITY);
+    }
+
+
+    public GeneStack(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The capacity of a gene stack must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.genes = new Gene[Math.min(capacity, INITIAL_SIZE)];
+    }
+
+
+    public boolean push(Gene gene) {
+        if (size == genes.length) {
+            if (size == capacity) return false;
+            genes = Arrays.copyOf(genes, (int) Math.min((long) size * 2L, capacity));
+        }
+        genes[size++] = gene;
+        return true;
+    }
+
+
+    public Gene pop() {
+        // release the reference so the creature isn't kept alive by the stack
+        Gene gene = genes[--size];
+        genes[size] = null;
+        return gene;
+    }
+
+
+    public boolean empty() {
+        return size == 0;
+    }
+
+
+    public int size() {
+        return size;
+    }
+
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+
+    private final int capacity;
+    private Gene[] genes;
+    private int size;
+    static private final int DEFAULT_CAPACITY = 1024;
+    static private final int INITIAL_SIZE = 16;
+
+}
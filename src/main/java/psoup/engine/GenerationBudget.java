@@ -0,0 +1,163 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package psoup.engine;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+
+/**
+ * This class limits how many generations the processors of an engine may
+ * run, or for how long.  A processor acquires a generation from the
+ * budget before taking a creature from the pool and reports back once the
+ * generation is complete, or refunds it if no creature was available.
+ * A processor that finds every remaining generation acquired by others
+ * waits rather than quitting since one of them may yet be refunded, and
+ * is woken when a generation is refunded or the budget is exhausted.  The
+ * time limit starts counting when the budget is started by the engine.
+ * Once the last generation has been completed, or the time is up, the
+ * budget is exhausted and the engine is notified through a future, so no
+ * thread has to poll the generation count.  An unlimited budget costs a
+ * single field read per generation.  This class is thread-safe.
+ *
+ * @author Derk Norton
+ */
+final class GenerationBudget {
+
+    static GenerationBudget unlimited() {
+        return new GenerationBudget(UNLIMITED, null);
+    }
+
+
+    static GenerationBudget ofGenerations(long numberOfGenerations) {
+        return new GenerationBudget(numberOfGenerations, null);
+    }
+
+
+    static GenerationBudget ofDuration(Duration duration) {
+        return new GenerationBudget(UNLIMITED, duration);
+    }
+
+
+    private GenerationBudget(long numberOfGenerations, Duration duration) {
+        this.counted = numberOfGenerations != UNLIMITED;
+        this.timed = duration != null;
+        this.remaining = new AtomicLong(numberOfGenerations);
+        this.outstanding = new AtomicLong(numberOfGenerations);
+        this.duration = timed ? duration.toNanos() : 0L;
+        this.exhausted = new CompletableFuture<>();
+        if (counted && numberOfGenerations <= 0L) {
+            exhausted.complete(null);
+        }
+
+        // however the budget is exhausted any waiting processors must give up
+        exhausted.thenRun(() -> wakeWaiters(true));
+    }
+
+
+    void start(long startTime) {
+        // the budget must be started before it is handed to the processors
+        this.deadline = startTime + duration;
+    }
+
+
+    boolean acquire() throws InterruptedException {
+        if (tryAcquire()) return true;
+        lock.lock();
+        try {
+            // the waiter is counted before trying again so a refund or completion cannot slip past it
+            waiters.incrementAndGet();
+            try {
+                while (!tryAcquire()) {
+                    if (exhausted.isDone()) return false;
+
+                    // the generations still held by other processors may be refunded
+                    changed.await();
+                }
+                return true;
+            } finally {
+                waiters.decrementAndGet();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    boolean tryAcquire() {
+        if (timed && System.nanoTime() - deadline >= 0L) {
+            exhausted.complete(null);
+            return false;
+        }
+        if (counted) {
+            long count;
+            do {
+                count = remaining.get();
+                if (count <= 0L) return false;
+            } while (!remaining.compareAndSet(count, count - 1L));
+        }
+        return true;
+    }
+
+
+    void refund() {
+        if (counted) {
+            remaining.incrementAndGet();
+            wakeWaiters(false);
+        }
+    }
+
+
+    void complete() {
+        if (counted && outstanding.decrementAndGet() == 0L) {
+            exhausted.complete(null);
+        }
+    }
+
+
+    CompletableFuture<Void> exhausted() {
+        return exhausted;
+    }
+
+
+    private void wakeWaiters(boolean all) {
+        // the lock is only taken when a processor is actually waiting
+        if (waiters.get() > 0) {
+            lock.lock();
+            try {
+                if (all) {
+                    changed.signalAll();
+                } else {
+                    changed.signal();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+
+    private final boolean counted;
+    private final boolean timed;
+    private final AtomicLong remaining;  // generations not yet acquired
+    private final AtomicLong outstanding;  // generations not yet completed
+    private final long duration;  // nanoseconds
+    private long deadline;  // nanoseconds
+    private final CompletableFuture<Void> exhausted;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();  // signalled by refunds and by exhaustion
+    private final AtomicInteger waiters = new AtomicInteger();
+    static private final long UNLIMITED = Long.MAX_VALUE;
+
+}
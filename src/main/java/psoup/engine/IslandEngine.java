@@ -0,0 +1,207 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package psoup.engine;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import psoup.*;
+import psoup.pool.*;
+
+
+/**
+ * This class acts on an island pool as an "evolution agent".  Unlike the
+ * evolution engine, each of its processing threads works on its own
+ * island so the threads do not contend for a shared gene pool.  The
+ * islands form a ring and every so many generations each thread migrates
+ * a sample of its creatures to the next island in the ring.  The engine
+ * runs exactly one thread per island, so each thread has sole use of its
+ * island; a thread count of zero means one thread per island.  A run can
+ * be limited to a number of generations or a length of time that is
+ * shared by all of the threads.  The islands are processed by tasks that
+ * run on an executor service, which may be provided by the caller.
+ *
+ * @author Derk Norton
+ */
+public final class IslandEngine implements Evolver {
+
+    static XLogger logger = XLoggerFactory.getXLogger(IslandEngine.class);
+
+
+    public IslandEngine(IslandPool pool, int migrationInterval, int numberOfMigrants) {
+        this(pool, migrationInterval, numberOfMigrants, null);
+    }
+
+
+    public IslandEngine(IslandPool pool, int migrationInterval, int numberOfMigrants, ExecutorService executor) {
+        this.pool = pool;
+        this.migrationInterval = migrationInterval;
+        this.numberOfMigrants = numberOfMigrants;
+        this.executor = executor;
+        this.evolving = false;
+        this.tasks = new IslandTask[0];
+    }
+
+
+    @Override
+    public synchronized void startEvolving(int threadCount) {
+        startEvolving(numberOfThreads(threadCount), GenerationBudget.unlimited());
+    }
+
+
+    @Override
+    public synchronized CompletableFuture<Statistics> evolve(int threadCount, long numberOfGenerations) {
+        return evolve(threadCount, GenerationBudget.ofGenerations(numberOfGenerations));
+    }
+
+
+    @Override
+    public synchronized CompletableFuture<Statistics> evolveFor(int threadCount, Duration duration) {
+        return evolve(threadCount, GenerationBudget.ofDuration(duration));
+    }
+
+
+    private CompletableFuture<Statistics> evolve(int threadCount, GenerationBudget budget) {
+        int numberOfThreads = numberOfThreads(threadCount);
+        CompletableFuture<Statistics> future = new CompletableFuture<>();
+        if (evolving) {
+            future.completeExceptionally(new IllegalStateException("The engine is already evolving."));
+            return future;
+        }
+        results = future;
+        startEvolving(numberOfThreads, budget);
+
+        // the threads cannot wait for themselves to finish so stop from another thread
+        budget.exhausted().thenRunAsync(() -> finishEvolving(budget));
+        return future;
+    }
+
+
+    private int numberOfThreads(int threadCount) {
+        // every island needs its own thread or migrants would pile up on an island that nothing processes
+        int numberOfIslands = pool.getNumberOfIslands();
+        if (threadCount == 0) return numberOfIslands;
+        if (threadCount != numberOfIslands) {
+            throw new IllegalArgumentException("The thread count (" + threadCount
+                    + ") must be zero or the number of islands (" + numberOfIslands + ").");
+        }
+        return threadCount;
+    }
+
+
+    private void startEvolving(int threadCount, GenerationBudget budget) {
+        if (!evolving) {
+            logger.info("Starting evolution...");
+            evolving = true;
+            this.startTime = System.nanoTime();
+            this.budget = budget;
+            budget.start(startTime);
+
+            // use a new set of low priority threads unless an executor service was provided
+            ExecutorService service = executor;
+            if (service == null) {
+                AtomicInteger number = new AtomicInteger();
+                service = Executors.newFixedThreadPool(threadCount, runnable -> {
+                    Thread thread = new Thread(runnable, "Island " + number.getAndIncrement());
+                    thread.setPriority(PROCESSOR_PRIORITY);
+                    return thread;
+                });
+            }
+            threads = service;
+
+            // start one processor per island
+            processors = new ProcessorGroup(service);
+            tasks = new IslandTask[threadCount];
+            for (int i = 0; i < threadCount; i++) {
+                Pool island = pool.getIsland(i);
+                Pool neighbor = pool.getIsland((i + 1) % threadCount);
+                tasks[i] = new IslandTask(island, neighbor, migrationInterval, numberOfMigrants, budget);
+                processors.submit(tasks[i]);
+            }
+        }
+    }
+
+
+    @Override
+    public synchronized void stopEvolving() {
+        if (evolving) {
+            logger.info("Stopping evolution...");
+
+            // interrupt the running processors and wait for them to finish
+            try {
+                processors.stop();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            // only shut down the threads that were created by this engine
+            if (executor == null) {
+                threads.shutdown();
+            }
+
+            evolving = false;
+
+            // report the statistics for a limited run
+            if (results != null) {
+                long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+                results.complete(new Statistics(getNumberOfGenerations(), elapsed, pool));
+                results = null;
+            }
+        }
+    }
+
+
+    private synchronized void finishEvolving(GenerationBudget budget) {
+        // the engine may have been stopped and restarted since the budget was exhausted
+        if (evolving && this.budget == budget) {
+            stopEvolving();
+        }
+    }
+
+
+    @Override
+    public synchronized boolean isEvolving() {
+        return evolving;
+    }
+
+
+    @Override
+    public synchronized long getNumberOfGenerations() {
+        // each task counts its own generations so they are summed here
+        long sum = 0L;
+        for (IslandTask task : tasks) {
+            sum += task.getNumberOfGenerations();
+        }
+        return sum;
+    }
+
+
+    @Override
+    public synchronized int getNumberOfActiveThreads() {
+        return processors == null ? 0 : processors.activeCount();
+    }
+
+
+    private final IslandPool pool;
+    private final int migrationInterval;
+    private final int numberOfMigrants;
+    private final ExecutorService executor;
+    private boolean evolving;
+    private IslandTask[] tasks;
+    private ExecutorService threads;
+    private ProcessorGroup processors;
+    private GenerationBudget budget;
+    private CompletableFuture<Statistics> results;
+    private long startTime;  // nanoseconds
+    static private final int PROCESSOR_PRIORITY = 2;
+
+}
@@ -0,0 +1,117 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package psoup.engine;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import psoup.*;
+
+
+/**
+ * This class provides a single stream of processing for the island
+ * engine.  Each island task processes creatures from its own island
+ * just like a processing task does with the shared gene pool.  Every
+ * so many generations it migrates a few randomly chosen creatures from
+ * its island to the neighboring island.
+ *
+ * @author Derk Norton
+ */
+final class IslandTask implements Runnable {
+
+    static XLogger logger = XLoggerFactory.getXLogger(IslandTask.class);
+
+    IslandTask(Pool island, Pool neighbor, int migrationInterval, int numberOfMigrants, GenerationBudget budget) {
+        this.island = island;
+        this.neighbor = neighbor;
+        this.migrationInterval = migrationInterval;
+        this.numberOfMigrants = numberOfMigrants;
+        this.budget = budget;
+    }
+
+
+    @Override
+    public void run() {
+        String name = Thread.currentThread().getName();
+        try {
+            logger.info("Starting thread {}...", name);
+            Processor processor = new Processor(island);
+            while (!Thread.interrupted()) {
+                // wait for a creature rather than spinning when the island is empty
+                Gene creature = island.takeCreature(IDLE_TIMEOUT, TimeUnit.MILLISECONDS);
+                if (creature == null) {
+                    if (budget.exhausted().isDone()) break;
+                    continue;
+                }
+
+                // an empty island must not hold on to a generation that another island could run
+                if (!acquire(creature)) break;
+                boolean completed = false;
+                try {
+                    processGeneration(processor, creature);
+                    completed = true;
+                } finally {
+                    // a generation that was not completed goes back into the budget
+                    if (!completed) budget.refund();
+                }
+            }
+            logger.info("Terminating thread {}...", name);
+        } catch (InterruptedException e) {
+            logger.info("Terminating thread {}...", name);
+        } catch (RuntimeException e) {
+            logger.error("Thread {} exited with exception: {}", name, e);
+        }
+    }
+
+
+    private boolean acquire(Gene creature) throws InterruptedException {
+        boolean acquired = false;
+        try {
+            acquired = budget.acquire();
+            return acquired;
+        } finally {
+            if (!acquired) island.putCreature(creature);
+        }
+    }
+
+
+    private void processGeneration(Processor processor, Gene creature) {
+        creature.accept(processor);
+        island.putCreature(creature);
+        processor.reset();
+        numberOfGenerations++;
+        if (numberOfGenerations % migrationInterval == 0) {
+            migrate();
+        }
+        budget.complete();
+    }
+
+
+    long getNumberOfGenerations() {
+        return numberOfGenerations;
+    }
+
+
+    private void migrate() {
+        List<Gene> migrants = island.getCreatures(0, numberOfMigrants);
+        neighbor.putCreatures(migrants);
+    }
+
+
+    private final Pool island;
+    private final Pool neighbor;
+    private final int migrationInterval;
+    private final int numberOfMigrants;
+    private final GenerationBudget budget;
+    private volatile long numberOfGenerations;  // only written by the thread running this task
+    static private final long IDLE_TIMEOUT = 1000;  // milliseconds
+
+}
@@ -10,9 +10,9 @@
 package psoup.engine;
 
 import psoup.GeneVisitor;
-import java.util.*;
 import psoup.*;
 import psoup.genes.*;
+import psoup.util.*;
 
 
 /**
@@ -20,38 +20,53 @@ import psoup.genes.*;
  * from different creatures based on a specifc probability that is associated
  * with this merger.  The probability is weighted based on the temperature of
  * the gene pool.  The actual merging depends on the type of gene the
- * merger is visiting.
+ * merger is visiting.  A merger keeps no state of its own besides the
+ * stack it merges from, so a processor can reuse the same merger for
+ * each merge gene.  The genes are visited using a work stack rather than
+ * recursion, so creatures of any depth can be merged.  A gene that is
+ * reached once the stack is empty is left alone.
  *
  * @author Derk Norton
  */
 public final class Merger implements GeneVisitor {
 
-    public Merger(Pool pool, Stack<Gene> stack) {
+    public Merger(Pool pool, GeneStack stack) {
         this.stack = stack;
     }
 
 
     @Override
     public void visit(Branch gene) {
+        if (work.tag() == LEAVING) {
+            leave(gene);
+            return;
+        }
+
         Gene left = gene.leftBranch;
         if (left == null && !stack.empty()) {
             left = stack.pop();
             gene.leftBranch = left;
+            gene.invalidateSpeciesId();
         }
 
         Gene right = gene.rightBranch;
         if (right == null && !stack.empty()) {
             right = stack.pop();
             gene.rightBranch = right;
+            gene.invalidateSpeciesId();
         }
 
-        if (left != null && !stack.empty()) {
-            left.accept(this);
-        }
-
-        if (right != null && !stack.empty()) {
-            right.accept(this);
+        // merge into the left and then the right branch while there is anything left to merge
+        if (!stack.empty()) {
+            work.push(gene, LEAVING);
+            if (right != null) {
+                work.push(right);
+            }
+            if (left != null) {
+                work.push(left);
+            }
         }
+        work.traverse(this);
     }
 
 
@@ -93,20 +108,57 @@ public final class Merger implements GeneVisitor {
 
     @Override
     public void visit(Sequence gene) {
-        Iterator<Gene> iterator = gene.genes.iterator();
-        while (iterator.hasNext() && !stack.empty()) {
-            Gene item = iterator.next();
-            item.accept(this);
+        if (work.tag() == LEAVING) {
+            leave(gene);
+            return;
+        }
+
+        // merge into the items in order while there is anything left to merge
+        if (!stack.empty()) {
+            work.push(gene, LEAVING);
+            for (int i = gene.genes.size() - 1; i >= 0; i--) {
+                work.push(gene.genes.get(i));
+            }
+        }
+        work.traverse(this);
+    }
+
+
+    private void leave(Branch gene) {
+        // a branch whose children changed has changed too
+        Gene left = gene.leftBranch;
+        if (left != null && !left.hasSpeciesId()) {
+            gene.invalidateSpeciesId();
         }
-        while (!stack.empty()) {
+        Gene right = gene.rightBranch;
+        if (right != null && !right.hasSpeciesId()) {
+            gene.invalidateSpeciesId();
+        }
+    }
+
+
+    private void leave(Sequence gene) {
+        // a sequence whose items changed has changed too
+        for (int i = 0; i < gene.genes.size(); i++) {
+            if (!gene.genes.get(i).hasSpeciesId()) {
+                gene.invalidateSpeciesId();
+            }
+        }
+
+        // append the rest of the stack one creature at a time, merging into each in turn
+        if (!stack.empty()) {
             Gene top = stack.pop();
             gene.genes.add(top);
-            top.accept(this);
+            gene.invalidateSpeciesId();
+            work.push(gene, LEAVING);
+            work.push(top);
         }
     }
 
 
-    private final Stack<Gene> stack;
+    private final GeneStack stack;
+    private final WorkStack work = new WorkStack();
+    static private final int LEAVING = 1;  // the children of the gene have been merged into
 
 
 }
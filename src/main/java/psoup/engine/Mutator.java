@@ -13,6 +13,7 @@ import psoup.GeneVisitor;
 import craterdog.primitives.Probability;
 import psoup.*;
 import psoup.genes.*;
+import psoup.util.*;
 
 
 /**
@@ -20,41 +21,49 @@ import psoup.genes.*;
  * of a creature based on a specifc probability that is associated
  * with this mutator.  The probability is weighted based on the temperature of
  * the gene pool.  The actual mutating depends on the type of gene the
- * mutator is visiting.
+ * mutator is visiting.  A mutator can be reset with a new probability so
+ * that a processor can reuse the same mutator for each mutate gene.  The
+ * children of a gene are mutated before the gene itself using a work
+ * stack rather than recursion, so creatures of any depth can be mutated.
  *
  * @author Derk Norton
  */
 public final class Mutator implements GeneVisitor {
 
+    public Mutator(Pool pool) {
+        this(pool, null);
+    }
+
+
     public Mutator(Pool pool, Probability probability) {
         this.pool = pool;
         this.probability = probability;
     }
 
 
+    public void reset(Probability probability) {
+        this.probability = probability;
+    }
+
+
     @Override
     public void visit(Branch gene) {
-        // mutate the left branch
-        Gene left = gene.leftBranch;
-        if (left != null) {
-            left.accept(this);
+        if (work.tag() == LEAVING) {
+            leave(gene);
+            return;
         }
 
-        // mutate the right branch
+        // mutate the branches before the gene itself
+        work.push(gene, LEAVING);
         Gene right = gene.rightBranch;
         if (right != null) {
-            right.accept(this);
+            work.push(right);
         }
-
-        // mutate the gene itself
-        if (pool.weightedCoinFlip(probability)) {
-            gene.probability = new Probability();
-        }
-        if (pool.weightedCoinFlip(probability)) {
-            gene.leftBranch = right;
-            gene.rightBranch = left;
+        Gene left = gene.leftBranch;
+        if (left != null) {
+            work.push(left);
         }
-
+        work.traverse(this);
     }
 
 
@@ -103,25 +112,70 @@ public final class Mutator implements GeneVisitor {
 
     @Override
     public void visit(Sequence gene) {
-        // mutate the items
-        for (Gene g : gene.genes) {
-            g.accept(this);
+        if (work.tag() == LEAVING) {
+            leave(gene);
+            return;
+        }
+
+        // mutate the items before the gene itself
+        work.push(gene, LEAVING);
+        for (int i = gene.genes.size() - 1; i >= 0; i--) {
+            work.push(gene.genes.get(i));
+        }
+        work.traverse(this);
+    }
+
+
+    private void leave(Branch gene) {
+        // a branch whose children changed has changed too
+        Gene left = gene.leftBranch;
+        if (left != null && !left.hasSpeciesId()) {
+            gene.invalidateSpeciesId();
+        }
+        Gene right = gene.rightBranch;
+        if (right != null && !right.hasSpeciesId()) {
+            gene.invalidateSpeciesId();
+        }
+
+        // mutate the gene itself
+        if (pool.weightedCoinFlip(probability)) {
+            gene.probability = new Probability();
+        }
+        if (pool.weightedCoinFlip(probability) && left != right) {
+            gene.leftBranch = right;
+            gene.rightBranch = left;
+            gene.invalidateSpeciesId();
+        }
+    }
+
+
+    private void leave(Sequence gene) {
+        // a sequence whose items changed has changed too
+        for (int i = 0; i < gene.genes.size(); i++) {
+            if (!gene.genes.get(i).hasSpeciesId()) {
+                gene.invalidateSpeciesId();
+            }
         }
 
         // mutate the gene itself
         if (gene.genes.size() > 1 && pool.weightedCoinFlip(probability)) {
             Probability randomizer = new Probability();
-            int index = (int) (((double) gene.genes.size() - 1) * randomizer.toDouble());
-            Gene swap = gene.genes.remove(index);
+            int from = (int) (((double) gene.genes.size() - 1) * randomizer.toDouble());
+            Gene swap = gene.genes.remove(from);
             randomizer = new Probability();
-            index = (int) (((double) gene.genes.size()) * randomizer.toDouble());
-            gene.genes.add(index, swap);
+            int to = (int) (((double) gene.genes.size()) * randomizer.toDouble());
+            gene.genes.add(to, swap);
+            if (from != to) {
+                gene.invalidateSpeciesId();
+            }
         }
     }
 
 
     private final Pool pool;
-    private final Probability probability;
+    private Probability probability;
+    private final WorkStack work = new WorkStack();
+    static private final int LEAVING = 1;  // the children of the gene have been mutated
 
 
 }
@@ -0,0 +1,115 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package psoup.engine;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import psoup.*;
+
+
+/**
+ * This class lets an engine pause its processors at a generation boundary
+ * without stopping them.  A processor enters the gate before it takes a
+ * creature and exits it when the generation is complete.  Pausing the gate
+ * turns new entrants away and waits for the processors that are already
+ * inside to exit, after which every creature is back in the pool.  A
+ * processor that is turned away waits for the gate to be resumed.  A
+ * processor inside the gate that is waiting for a creature on an empty
+ * pool holds no creatures, so pausing the gate interrupts its wait rather
+ * than waiting for a creature to turn up.  Entering and exiting an open
+ * gate costs an atomic increment and decrement.  This class is
+ * thread-safe.
+ *
+ * @author Derk Norton
+ */
+final class PauseGate {
+
+    boolean tryEnter() {
+        busy.incrementAndGet();
+        if (paused) {
+            exit();
+            return false;
+        }
+        return true;
+    }
+
+
+    void exit() {
+        if (busy.decrementAndGet() == 0 && paused) {
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+    }
+
+
+    Gene takeCreature(Pool pool, long timeout, TimeUnit unit) throws InterruptedException {
+        // a pause interrupts only the threads that are registered as waiting
+        Thread thread = Thread.currentThread();
+        synchronized (this) {
+            if (paused) return null;
+            waiting.add(thread);
+        }
+        try {
+            return pool.takeCreature(timeout, unit);
+        } catch (InterruptedException e) {
+            if (!paused) throw e;
+            return null;
+        } finally {
+            synchronized (this) {
+                waiting.remove(thread);
+            }
+
+            // a pause may have interrupted the thread just as the wait ended
+            if (paused) Thread.interrupted();
+        }
+    }
+
+
+    void awaitResume() throws InterruptedException {
+        if (paused) {
+            synchronized (this) {
+                while (paused) {
+                    wait();
+                }
+            }
+        }
+    }
+
+
+    synchronized void pause() throws InterruptedException {
+        // turn away new entrants, wake those waiting for a creature and wait for the rest to finish
+        paused = true;
+        for (Thread thread : waiting) {
+            thread.interrupt();
+        }
+        while (busy.get() > 0) {
+            wait();
+        }
+    }
+
+
+    synchronized void resume() {
+        paused = false;
+        notifyAll();
+    }
+
+
+    boolean isPaused() {
+        return paused;
+    }
+
+
+    private volatile boolean paused;
+    private final AtomicInteger busy = new AtomicInteger();
+    private final Set<Thread> waiting = new HashSet<>();  // guarded by the monitor
+
+}
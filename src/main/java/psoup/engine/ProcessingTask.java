@@ -0,0 +1,105 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package psoup.engine;
+
+import java.util.concurrent.TimeUnit;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import psoup.*;
+import psoup.util.*;
+
+
+/**
+ * This class provides a single stream of processing for the evolution
+ * engine.  Each processing task grabs one creature from the gene pool
+ * and "executes" its genes to perform operations on other creatures
+ * using gene visitors.  This process is repeated in a loop until the
+ * thread running the task is interrupted or the generation budget of the
+ * engine is exhausted.  When the gene pool is empty the task waits for a
+ * creature to be put back instead of polling the pool.  While the engine
+ * is paused the task waits between generations.  A task that is retired
+ * by the engine finishes its current generation and then returns.
+ *
+ * @author Derk Norton
+ */
+final class ProcessingTask implements Runnable {
+
+    static XLogger logger = XLoggerFactory.getXLogger(ProcessingTask.class);
+
+    ProcessingTask(Pool pool, SharedCounter generationCounter, GenerationBudget budget, PauseGate gate) {
+        this.pool = pool;
+        this.generationCounter = generationCounter;
+        this.budget = budget;
+        this.gate = gate;
+    }
+
+
+    @Override
+    public void run() {
+        String name = Thread.currentThread().getName();
+        try {
+            logger.info("Starting thread {}...", name);
+            Processor processor = new Processor(pool);
+            while (!Thread.interrupted() && !retired && budget.acquire()) {
+                boolean completed = false;
+                try {
+                    completed = processGeneration(processor);
+                } finally {
+                    // a generation that was not completed goes back into the budget
+                    if (!completed) budget.refund();
+                }
+            }
+            logger.info("Terminating thread {}...", name);
+        } catch (InterruptedException e) {
+            logger.info("Terminating thread {}...", name);
+        } catch (RuntimeException e) {
+            logger.error("Thread {} exited with exception: {}", name, e);
+        }
+    }
+
+
+    void retire() {
+        retired = true;
+    }
+
+
+    private boolean processGeneration(Processor processor) throws InterruptedException {
+        gate.awaitResume();
+        if (!gate.tryEnter()) return false;
+        try {
+            // wait for a creature rather than spinning when the pool is empty, unless the engine pauses
+            Gene creature = pool.getCreature(0L);
+            if (creature == null) {
+                creature = gate.takeCreature(pool, IDLE_TIMEOUT, TimeUnit.MILLISECONDS);
+            }
+            if (creature == null) return false;
+            creature.accept(processor);
+            pool.putCreature(creature);
+
+            // return the held creatures before the generation counts against the budget
+            processor.reset();
+            generationCounter.increment();
+            budget.complete();
+            return true;
+        } finally {
+            gate.exit();
+        }
+    }
+
+
+    private final Pool pool;
+    private final SharedCounter generationCounter;
+    private final GenerationBudget budget;
+    private final PauseGate gate;
+    private volatile boolean retired;
+    static private final long IDLE_TIMEOUT = 1000;  // milliseconds
+
+
+}
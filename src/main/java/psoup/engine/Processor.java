@@ -11,23 +11,47 @@ package psoup.engine;
 
 import psoup.GeneVisitor;
 import craterdog.primitives.Probability;
-import java.util.*;
 import psoup.*;
 import psoup.genes.*;
+import psoup.util.*;
 
 
 /**
  * This class implements the gene visitor pattern and "executes"
  * the command that each gene specifies.  It is used by a processor
- * thread to do its work.
+ * thread to do its work.  Creatures that are put back into the pool
+ * during a generation are held by the processor and returned to the
+ * pool together when the processor is reset.  The processor keeps one
+ * chopper, copier, mutator and merger and resets them for each gene that
+ * uses them, so processing a creature allocates nothing besides the
+ * genes themselves.  The creatures that the genes operate on are held on
+ * a gene stack with a capacity limit; a creature that does not fit on a
+ * full stack is put back into the pool.  The genes of a creature are
+ * executed from a work stack rather than by recursion, so a creature of
+ * any depth can be processed.
  *
  * @author Derk Norton
  */
 public final class Processor implements GeneVisitor {
 
     public Processor(Pool pool) {
-        this.pool = pool;
-        this.stack = new Stack<>();
+        this(pool, new GeneStack());
+    }
+
+
+    public Processor(Pool pool, int stackCapacity) {
+        this(pool, new GeneStack(stackCapacity));
+    }
+
+
+    private Processor(Pool pool, GeneStack stack) {
+        this.pool = new BufferedPool(pool);
+        this.stack = stack;
+        this.chopper = new Chopper(this.pool);
+        this.copier = new Copier(this.pool);
+        this.mutator = new Mutator(this.pool);
+        this.merger = new Merger(this.pool, stack);
+        this.work = new WorkStack();
     }
 
 
@@ -37,14 +61,15 @@ public final class Processor implements GeneVisitor {
         if (Probability.coinToss(gene.probability)) {
             Gene left = gene.leftBranch;
             if (left != null) {
-                left.accept(this);
+                work.push(left);
             }
         } else {
             Gene right = gene.rightBranch;
             if (right != null) {
-                right.accept(this);
+                work.push(right);
             }
         }
+        work.traverse(this);
     }
 
 
@@ -53,7 +78,7 @@ public final class Processor implements GeneVisitor {
         // if there is a creature on the stack, chop it and put its pieces back on the stack
         if (!stack.empty()) {
             Gene creature = stack.pop();
-            Chopper chopper = new Chopper(pool, gene.probability);
+            chopper.reset(gene.probability);
             creature.accept(chopper);
             stack.push(creature);
         }
@@ -65,12 +90,13 @@ public final class Processor implements GeneVisitor {
         // if there is a creature on the stack, copy it and put them both back on the stack
         if (!stack.empty()) {
             Gene creature = stack.pop();
-            Copier copier = new Copier(pool, gene.probability);
+            copier.reset(gene.probability);
             creature.accept(copier);
             stack.push(creature);
             Gene copy = copier.copy;
-            if (copy != null) {
-                stack.push(copy);
+            copier.copy = null;
+            if (copy != null && !stack.push(copy)) {
+                pool.putCreature(copy);
             }
         }
     }
@@ -80,8 +106,8 @@ public final class Processor implements GeneVisitor {
     public void visit(Get gene) {
         // get a matching creature from the pool and put it on the stack
         Gene match = pool.getCreature(gene.speciesId);
-        if (match != null) {
-            stack.push(match);
+        if (match != null && !stack.push(match)) {
+            pool.putCreature(match);
         }
     }
 
@@ -91,7 +117,6 @@ public final class Processor implements GeneVisitor {
         // if there are multiple creatures on the stack, merge them and put them back on the stack
         if (stack.size() > 1) {
             Gene creature = stack.pop();
-            Merger merger = new Merger(pool, stack);
             creature.accept(merger);
             stack.push(creature);
         }
@@ -103,7 +128,7 @@ public final class Processor implements GeneVisitor {
         // if there is a creature on the stack, mutate it and put it back on the stack
         if (!stack.empty()) {
             Gene creature = stack.pop();
-            Mutator mutator = new Mutator(pool, gene.probability);
+            mutator.reset(gene.probability);
             creature.accept(mutator);
             stack.push(creature);
         }
@@ -123,9 +148,10 @@ public final class Processor implements GeneVisitor {
     @Override
     public void visit(Sequence gene) {
         // process each gene in the sequence in order
-        for (Gene g : gene.genes) {
-            g.accept(this);
+        for (int i = gene.genes.size() - 1; i >= 0; i--) {
+            work.push(gene.genes.get(i));
         }
+        work.traverse(this);
     }
 
 
@@ -134,11 +160,17 @@ public final class Processor implements GeneVisitor {
             Gene top = stack.pop();
             pool.putCreature(top);
         }
+        pool.flush();
     }
 
 
-    private final Pool pool;
-    private final Stack<Gene> stack;
+    private final BufferedPool pool;
+    private final GeneStack stack;
+    private final Chopper chopper;
+    private final Copier copier;
+    private final Mutator mutator;
+    private final Merger merger;
+    private final WorkStack work;
 
 
 }
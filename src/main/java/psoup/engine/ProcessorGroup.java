@@ -0,0 +1,107 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package psoup.engine;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+
+/**
+ * This class keeps track of the processing tasks that an engine has
+ * submitted to an executor service.  It replaces a thread group: it knows
+ * exactly which threads are running its tasks so it can count them and
+ * interrupt them, and it can wait for every submitted task to finish,
+ * including tasks that were still queued when the group was stopped.
+ * This class is thread-safe.
+ *
+ * @author Derk Norton
+ */
+final class ProcessorGroup {
+
+    ProcessorGroup(Executor executor) {
+        this.executor = executor;
+        this.threads = new HashSet<>();
+    }
+
+
+    synchronized void submit(Runnable task) {
+        pending++;
+        try {
+            executor.execute(() -> run(task));
+        } catch (RejectedExecutionException e) {
+            finish();
+            throw e;
+        }
+    }
+
+
+    synchronized void stop() throws InterruptedException {
+        // interrupt the running tasks and keep any queued tasks from starting
+        stopping = true;
+        for (Thread thread : threads) {
+            thread.interrupt();
+        }
+
+        // wait for all of the tasks to finish
+        while (pending > 0) {
+            wait();
+        }
+    }
+
+
+    synchronized int activeCount() {
+        return threads.size();
+    }
+
+
+    synchronized long[] threadIds() {
+        long[] ids = new long[threads.size()];
+        int index = 0;
+        for (Thread thread : threads) {
+            ids[index++] = thread.getId();
+        }
+        return ids;
+    }
+
+
+    private void run(Runnable task) {
+        Thread thread = Thread.currentThread();
+        synchronized (this) {
+            if (stopping) {
+                finish();
+                return;
+            }
+            threads.add(thread);
+        }
+        try {
+            task.run();
+        } finally {
+            synchronized (this) {
+                threads.remove(thread);
+                finish();
+            }
+            // don't leave the interrupt behind for the next task run by this thread
+            Thread.interrupted();
+        }
+    }
+
+
+    private void finish() {
+        pending--;
+        notifyAll();
+    }
+
+
+    private final Executor executor;
+    private final Set<Thread> threads;
+    private int pending;
+    private boolean stopping;
+
+}
@@ -0,0 +1,100 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package psoup.engine;
+
+
+/**
+ * This class chooses how many processors an engine should run by hill
+ * climbing toward the number that gives the most generations per second.
+ * It is given one sample per tuning interval: the throughput measured
+ * over the interval and the fraction of that time the processors spent
+ * blocked on locks.  A step that raises the throughput by more than the
+ * tolerance is followed by another step in the same direction, and a step
+ * that lowers it is undone.  An extra processor that makes no difference
+ * is removed again while a processor that can be removed without losing
+ * throughput stays removed.  Once a step has been undone the count is
+ * held for a number of samples before it is probed again, so the count
+ * settles at the peak rather than oscillating around it.  A processor is
+ * never added while the contention is high and a high contention alone
+ * is reason enough to probe with one processor fewer.  This class is not
+ * thread-safe.
+ *
+ * @author Derk Norton
+ */
+final class ThreadTuner {
+
+    ThreadTuner(int minimum, int maximum, int initial) {
+        this.minimum = minimum;
+        this.maximum = maximum;
+        this.threadCount = Math.max(minimum, Math.min(maximum, initial));
+        reset();
+    }
+
+
+    void reset() {
+        // forget the last sample so the next one only sets a new baseline and probes
+        previous = Double.NaN;
+        step = 0;
+        held = HOLD_SAMPLES - 1;
+    }
+
+
+    int getThreadCount() {
+        return threadCount;
+    }
+
+
+    int adjust(double throughput, double contention) {
+        boolean congested = contention > HIGH_CONTENTION;
+        int next = 0;
+        if (Double.isNaN(previous) || step == 0) {
+            // hold the count for a while before probing in the most promising direction
+            if (++held >= HOLD_SAMPLES) {
+                next = congested ? -1 : 1;
+            }
+        } else if (throughput > previous * (1.0 + TOLERANCE)) {
+            // the last step helped so keep climbing
+            next = (step > 0 && congested) ? 0 : step;
+        } else if (throughput < previous * (1.0 - TOLERANCE) || step > 0) {
+            // the last step hurt, or added a processor for nothing, so undo it and hold
+            move(-step);
+            held = 0;
+        }
+        previous = throughput;
+        step = move(next);
+        if (step != 0) held = 0;
+        return threadCount;
+    }
+
+
+    private int move(int delta) {
+        int count = clamp(threadCount + delta);
+        int moved = count - threadCount;
+        threadCount = count;
+        return moved;
+    }
+
+
+    private int clamp(int count) {
+        return Math.max(minimum, Math.min(maximum, count));
+    }
+
+
+    private final int minimum;
+    private final int maximum;
+    private int threadCount;
+    private double previous;  // generations per second
+    private int step;  // the last change to the thread count that is still being judged
+    private int held;  // samples since the count last changed
+    static private final double TOLERANCE = 0.05;
+    static private final double HIGH_CONTENTION = 0.5;
+    static private final int HOLD_SAMPLES = 10;
+
+}
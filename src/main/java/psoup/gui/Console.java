@@ -171,24 +171,24 @@ public final class Console extends javax.swing.JFrame {
             try {
                 while (!Thread.interrupted()) {
                     int numberOfActiveThreads = engine.getNumberOfActiveThreads();
-                    int numberOfGenerations = engine.getNumberOfGenerations();
+                    long numberOfGenerations = engine.getNumberOfGenerations();
                     double temperature = pool.getTemperature().toDouble() * 100;
                     numberOfThreadsField.setText(Integer.toString(numberOfActiveThreads));
-                    numberOfGenerationsField.setText(Integer.toString(numberOfGenerations));
+                    numberOfGenerationsField.setText(Long.toString(numberOfGenerations));
                     if (iterations > 0) {
-                        generationsPerSecondField.setText(Integer.toString(numberOfGenerations / (iterations * 5 /*seconds/iteration*/ )));
+                        generationsPerSecondField.setText(Long.toString(numberOfGenerations / (iterations * 5 /*seconds/iteration*/ )));
                     } else {
                         generationsPerSecondField.setText("0");
                     }
-                    currentNumberOfGenesField.setText(Integer.toString(pool.getCurrentNumberOfGenes()));
-                    currentNumberOfSpeciesField.setText(Integer.toString(pool.getCurrentNumberOfSpecies()));
-                    currentNumberOfCreaturesField.setText(Integer.toString(pool.getCurrentNumberOfCreatures()));
-                    lowNumberOfGenesField.setText(Integer.toString(pool.getLowestNumberOfGenes()));
-                    lowNumberOfSpeciesField.setText(Integer.toString(pool.getLowestNumberOfSpecies()));
-                    lowNumberOfCreaturesField.setText(Integer.toString(pool.getLowestNumberOfCreatures()));
-                    highNumberOfGenesField.setText(Integer.toString(pool.getHighestNumberOfGenes()));
-                    highNumberOfSpeciesField.setText(Integer.toString(pool.getHighestNumberOfSpecies()));
-                    highNumberOfCreaturesField.setText(Integer.toString(pool.getHighestNumberOfCreatures()));
+                    currentNumberOfGenesField.setText(Long.toString(pool.getCurrentNumberOfGenes()));
+                    currentNumberOfSpeciesField.setText(Long.toString(pool.getCurrentNumberOfSpecies()));
+                    currentNumberOfCreaturesField.setText(Long.toString(pool.getCurrentNumberOfCreatures()));
+                    lowNumberOfGenesField.setText(Long.toString(pool.getLowestNumberOfGenes()));
+                    lowNumberOfSpeciesField.setText(Long.toString(pool.getLowestNumberOfSpecies()));
+                    lowNumberOfCreaturesField.setText(Long.toString(pool.getLowestNumberOfCreatures()));
+                    highNumberOfGenesField.setText(Long.toString(pool.getHighestNumberOfGenes()));
+                    highNumberOfSpeciesField.setText(Long.toString(pool.getHighestNumberOfSpecies()));
+                    highNumberOfCreaturesField.setText(Long.toString(pool.getHighestNumberOfCreatures()));
                     currentTemperatureSlider.setValue((int) Math.round(temperature));
                     creatureData.addOrUpdate(new Minute(), pool.getCurrentNumberOfCreatures());
                     speciesData.addOrUpdate(new Minute(), pool.getCurrentNumberOfSpecies());
@@ -769,7 +769,9 @@ public final class Console extends javax.swing.JFrame {
         } else {
             try {
                 numberOfThreadsField.setEditable(false);
-                int numberOfThreads = Integer.parseInt(numberOfThreadsField.getText());
+                // the engine tunes the number of threads itself when asked to
+                String threads = numberOfThreadsField.getText().trim();
+                int numberOfThreads = threads.equalsIgnoreCase("auto") ? EvolutionEngine.AUTOMATIC : Integer.parseInt(threads);
                 initialNumberOfCreaturesField.setEditable(false);
                 relativeComplexityField.setEditable(false);
                 maximumDepthField.setEditable(false);
@@ -792,11 +794,11 @@ public final class Console extends javax.swing.JFrame {
                 int maximumDepth = Integer.parseInt(maximumDepthField.getText());
                 Probability temperature = new Probability(Double.parseDouble(initialTemperatureField.getText()) / 100.0);
                 pool.initialize(numberOfCreatures, relativeComplexity, maximumDepth, temperature);
-                int numberOfSpecies = pool.getCurrentNumberOfSpecies();
-                int numberOfGenes = pool.getCurrentNumberOfGenes();
+                long numberOfSpecies = pool.getCurrentNumberOfSpecies();
+                long numberOfGenes = pool.getCurrentNumberOfGenes();
                 double averageSize = (double) numberOfGenes / (double) numberOfCreatures;
-                initialNumberOfSpeciesField.setText(Integer.toString(numberOfSpecies));
-                initialNumberOfGenesField.setText(Integer.toString(numberOfGenes));
+                initialNumberOfSpeciesField.setText(Long.toString(numberOfSpecies));
+                initialNumberOfGenesField.setText(Long.toString(numberOfGenes));
                 initialAverageSizeField.setText(Long.toString(Math.round(averageSize)));
                 numberOfThreadsField.setEditable(true);
                 numberOfThreadsField.setText("10");
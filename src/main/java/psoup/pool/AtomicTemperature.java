@@ -0,0 +1,66 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package psoup.pool;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * This class implements the temperature of a pool as a double that can be
+ * raised, lowered and used to weight coin flips without locking or
+ * allocating any objects.  The value is stored as the bits of a double
+ * in an atomic long.  This class is thread-safe.
+ *
+ * @author Derk Norton
+ */
+final class AtomicTemperature {
+
+    double get() {
+        return Double.longBitsToDouble(bits.get());
+    }
+
+
+    void set(double temperature) {
+        bits.set(Double.doubleToLongBits(temperature));
+    }
+
+
+    void raise() {
+        while (true) {
+            long current = bits.get();
+            double temperature = Double.longBitsToDouble(current);
+            if (temperature >= 1.0d - DELTA) return;
+            if (bits.compareAndSet(current, Double.doubleToLongBits(temperature + DELTA))) return;
+        }
+    }
+
+
+    void lower() {
+        while (true) {
+            long current = bits.get();
+            double temperature = Double.longBitsToDouble(current);
+            if (temperature <= DELTA) return;
+            if (bits.compareAndSet(current, Double.doubleToLongBits(temperature - DELTA))) return;
+        }
+    }
+
+
+    boolean weightedCoinFlip(double probability) {
+        double weighted = probability * Double.longBitsToDouble(bits.get());
+        return weighted > ThreadLocalRandom.current().nextDouble();
+    }
+
+
+    private final AtomicLong bits = new AtomicLong();
+
+    static private final double DELTA = 0.00001d;
+
+}
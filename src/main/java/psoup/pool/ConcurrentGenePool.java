@@ -0,0 +1,400 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package psoup.pool;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import craterdog.primitives.Probability;
+import craterdog.smart.SmartObject;
+import craterdog.smart.SmartObjectMapper;
+import psoup.*;
+import psoup.util.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.io.*;
+
+
+/**
+ * This class implements a gene pool that does not block.  The species are
+ * kept in a concurrent map that is keyed by primitive species ids and the
+ * members of each species are kept in a concurrent queue along with an
+ * atomic count of the members.  A member is added to the queue before it
+ * is counted, so a thread that reserves a member by decrementing the
+ * count always finds one in the queue.  A count of minus one marks a
+ * species that has gone extinct and been removed from the map, so a
+ * species is created and retired using compare-and-set operations rather
+ * than locks.  Random species are picked from a snapshot of the species
+ * ids that is rebuilt by a single thread once enough species have come
+ * and gone, or sooner if the species picked from it keep turning out to
+ * be extinct.  An empty pool is recognized from its count of creatures.
+ * Members of a species are selected in the order they were added rather
+ * than at random.  A thread taking a creature from an empty pool spins
+ * briefly and then parks until another thread puts a creature back.  This
+ * class is thread-safe.
+ *
+ * @author Derk Norton
+ */
+public final class ConcurrentGenePool extends SmartObject<ConcurrentGenePool> implements Pool {
+
+    public ConcurrentGenePool() {
+        this.species = new ConcurrentLongMap<>();
+        this.snapshot = new long[0];
+    }
+
+
+    @Override
+    public void initialize(int numberOfCreatures, Probability relativeComplexity, int maximumDepth, Probability temperature) {
+        // reset the existing state
+        this.species.clear();
+        this.snapshot = new long[0];
+        this.changes.set(0);
+        this.geneCounter.resetCounter();
+        this.speciesCounter.resetCounter();
+        this.creatureCounter.resetCounter();
+
+        // initialize the pool, the genes are counted as the creatures are put into it
+        setTemperature(temperature);
+        Initializer initializer = new Initializer(this, relativeComplexity, maximumDepth);
+        for (int i = 0; i < numberOfCreatures; i++) {
+            Gene creature = initializer.generateCreature();
+            putCreature(creature);
+        }
+
+        // set the high and low water marks
+        this.geneCounter.resetWaterMarks();
+        this.speciesCounter.resetWaterMarks();
+        this.creatureCounter.resetWaterMarks();
+    }
+
+
+    static public ConcurrentGenePool loadGenePool(String fileName) {
+        SmartObjectMapper mapper = new SmartObjectMapper();
+        try (FileInputStream fileInputStream = new FileInputStream(fileName)) {
+            ConcurrentGenePool pool = mapper.readValue(fileInputStream, ConcurrentGenePool.class);
+            return pool;
+        } catch (IOException e) {
+            throw new RuntimeException("Illegal pool file specified: " + fileName, e);
+        }
+    }
+
+
+    static public void storeGenePool(ConcurrentGenePool pool, String fileName) {
+        SmartObjectMapper mapper = new SmartObjectMapper();
+        try (FileOutputStream fileOutputStream = new FileOutputStream(fileName)) {
+            mapper.writeValue(fileOutputStream, pool);
+        } catch (IOException e) {
+            throw new RuntimeException("Illegal pool file specified: " + fileName, e);
+        }
+    }
+
+
+    @Override
+    @JsonIgnore
+    public Gene getCreature(long speciesId) {
+        if (speciesId != 0L) {
+            return takeMember(speciesId);
+        }
+
+        // an empty pool is recognized without looking at its species
+        if (creatureCounter.getCurrentValue() <= 0L) return null;
+        Gene creature = takeRandomMember();
+
+        // a snapshot that is too stale to find a member by chance is rebuilt once
+        if (creature == null && rebuildStaleSnapshot()) {
+            creature = takeRandomMember();
+        }
+        return creature;
+    }
+
+
+    @Override
+    public Gene takeCreature(long timeout, TimeUnit unit) throws InterruptedException {
+        return signal.await(() -> getCreature(0L), timeout, unit);
+    }
+
+
+    @Override
+    public void putCreature(Gene creature) {
+        long speciesId = creature.getSpeciesId();
+        creatureCounter.increment();
+        geneCounter.increment(creature.getNumberOfGenes());
+        while (true) {
+            // if this is a new species try to create it with the creature already in it
+            Bag bag = species.get(speciesId);
+            if (bag == null) {
+                bag = new Bag(creature);
+                Bag existing = species.putIfAbsent(speciesId, bag);
+                if (existing == null) {
+                    speciesCounter.increment();
+                    temperature.lower();
+                    changes.incrementAndGet();
+                    signal.signal();
+                    return;
+                }
+                bag = existing;
+            }
+
+            // otherwise add the creature to the existing species and then count it
+            bag.members.add(creature);
+            int count;
+            do {
+                count = bag.count.get();
+            } while (count >= 0 && !bag.count.compareAndSet(count, count + 1));
+            if (count >= 0) {
+                signal.signal();
+                return;
+            }
+
+            // the species went extinct first so take back an uncounted member and put it elsewhere
+            species.remove(speciesId, bag);
+            creature = bag.members.poll();
+        }
+    }
+
+
+    @Override
+    public long pickRandomSpecies() {
+        long[] ids = snapshot;
+        int seen = changes.get();
+        boolean missing = ids.length == 0 && !species.isEmpty();
+        if ((seen > ids.length / 8 + 16 || missing) && changes.compareAndSet(seen, 0)) {
+            // only the thread that resets the count of changes rebuilds the snapshot
+            ids = refreshSnapshot();
+        } else if (missing) {
+            // another thread is still building the first snapshot
+            ids = species.keys();
+        }
+        if (ids.length == 0) return 0L;
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+
+
+    @Override
+    @JsonIgnore
+    public long getCurrentNumberOfGenes() {
+        return geneCounter.getCurrentValue();
+    }
+
+
+    @Override
+    @JsonIgnore
+    public long getLowestNumberOfGenes() {
+        return geneCounter.getLowWaterMark();
+    }
+
+
+    @Override
+    @JsonIgnore
+    public long getHighestNumberOfGenes() {
+        return geneCounter.getHighWaterMark();
+    }
+
+
+    @Override
+    @JsonIgnore
+    public long getCurrentNumberOfSpecies() {
+        return speciesCounter.getCurrentValue();
+    }
+
+
+    @Override
+    @JsonIgnore
+    public long getLowestNumberOfSpecies() {
+        return speciesCounter.getLowWaterMark();
+    }
+
+
+    @Override
+    @JsonIgnore
+    public long getHighestNumberOfSpecies() {
+        return speciesCounter.getHighWaterMark();
+    }
+
+
+    @Override
+    @JsonIgnore
+    public long getCurrentNumberOfCreatures() {
+        return creatureCounter.getCurrentValue();
+    }
+
+
+    @Override
+    @JsonIgnore
+    public long getLowestNumberOfCreatures() {
+        return creatureCounter.getLowWaterMark();
+    }
+
+
+    @Override
+    @JsonIgnore
+    public long getHighestNumberOfCreatures() {
+        return creatureCounter.getHighWaterMark();
+    }
+
+
+    @Override
+    public void resetWaterMarks() {
+        geneCounter.resetWaterMarks();
+        speciesCounter.resetWaterMarks();
+        creatureCounter.resetWaterMarks();
+    }
+
+
+    @JsonIgnore
+    public int getNumberOfSpins() {
+        return signal.getNumberOfSpins();
+    }
+
+
+    public void setNumberOfSpins(int numberOfSpins) {
+        // the number of times a taking thread retries before parking
+        signal.setNumberOfSpins(numberOfSpins);
+    }
+
+
+    @Override
+    public Probability getTemperature() {
+        return new Probability(temperature.get());
+    }
+
+
+    @Override
+    public void setTemperature(Probability temperature) {
+        this.temperature.set(temperature.toDouble());
+    }
+
+
+    @Override
+    public boolean weightedCoinFlip(Probability probability) {
+        return temperature.weightedCoinFlip(probability.toDouble());
+    }
+
+
+    public SpeciesMap getPool() {
+        // the pool is only consistent if no processors are using it
+        SpeciesMap pool = new SpeciesMap();
+        long[] ids = species.keys();
+        Arrays.sort(ids);  // so the stored pool doesn't depend on the layout of the map
+        for (long speciesId : ids) {
+            Bag bag = species.get(speciesId);
+            if (bag == null) continue;
+            Species copy = new Species();
+            copy.members.addAll(bag.members);
+            if (!copy.isExtinct()) {
+                pool.put(speciesId, copy);
+            }
+        }
+        return pool;
+    }
+
+
+    public void setPool(SpeciesMap pool) {
+        species.clear();
+        for (int i = 0; i < pool.size(); i++) {
+            Bag bag = new Bag(pool.speciesAt(i).members);
+            species.putIfAbsent(pool.idAt(i), bag);
+        }
+        changes.set(0);
+        refreshSnapshot();
+    }
+
+
+    private Gene takeMember(long speciesId) {
+        Bag bag = species.get(speciesId);
+        if (bag == null) return null;
+
+        // reserve one of the members
+        int count;
+        do {
+            count = bag.count.get();
+            if (count <= 0) return null;
+        } while (!bag.count.compareAndSet(count, count - 1));
+
+        // every counted member is already in the queue
+        Gene creature = bag.members.poll();
+        creatureCounter.decrement();
+        geneCounter.decrement(creature.getNumberOfGenes());
+
+        // if that was the last member retire the species unless another was just added
+        if (count == 1 && bag.count.compareAndSet(0, -1)) {
+            species.remove(speciesId, bag);
+            speciesCounter.decrement();
+            temperature.raise();
+            changes.incrementAndGet();
+        }
+        return creature;
+    }
+
+
+    private Gene takeRandomMember() {
+        // pick random species until one still has a member
+        for (int attempt = 0; attempt < MAXIMUM_ATTEMPTS; attempt++) {
+            long speciesId = pickRandomSpecies();
+            if (speciesId == 0L) return null;
+            Gene creature = takeMember(speciesId);
+            if (creature != null) return creature;
+        }
+        return null;
+    }
+
+
+    private boolean rebuildStaleSnapshot() {
+        // a snapshot taken since the last change is accurate, and only one thread rebuilds it
+        int seen = changes.get();
+        if (seen == 0 || !changes.compareAndSet(seen, 0)) return false;
+        refreshSnapshot();
+        return true;
+    }
+
+
+    private long[] refreshSnapshot() {
+        // changes made while the snapshot is being built are counted toward the next one
+        long[] ids = species.keys();
+        snapshot = ids;
+        return ids;
+    }
+
+
+    /**
+     * This class holds the members of a single species along with a count
+     * of the members that have been reserved by puts and not yet taken.
+     */
+    static private final class Bag {
+
+        Bag(Gene creature) {
+            this.members = new ConcurrentLinkedQueue<>();
+            this.members.add(creature);
+            this.count = new AtomicInteger(1);
+        }
+
+
+        Bag(Collection<Gene> creatures) {
+            this.members = new ConcurrentLinkedQueue<>(creatures);
+            this.count = new AtomicInteger(members.size());
+        }
+
+
+        final Queue<Gene> members;
+        final AtomicInteger count;
+
+    }
+
+
+    public final SharedCounter geneCounter = new SharedCounter();
+    public final SharedCounter speciesCounter = new SharedCounter();
+    public final SharedCounter creatureCounter = new SharedCounter();
+    private final ConcurrentLongMap<Bag> species;
+    private volatile long[] snapshot;
+    private final AtomicInteger changes = new AtomicInteger();
+    private final AtomicTemperature temperature = new AtomicTemperature();
+    private final Signal signal = new Signal();
+    static private final int MAXIMUM_ATTEMPTS = 8;
+
+}
@@ -0,0 +1,258 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package psoup.pool;
+
+import java.util.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.ObjLongConsumer;
+
+
+/**
+ * This class implements a map from primitive long keys to values that can
+ * be used by many threads at once without locking and without boxing the
+ * keys.  The entries of each bucket form an immutable chain, and every
+ * change replaces the head of a chain using a compare-and-set operation,
+ * copying the entries in front of a removed entry.  When the map outgrows
+ * its table a single thread builds a table twice the size while the other
+ * threads carry on: each bucket is split between the two buckets it maps
+ * to in the new table and then replaced by a forwarding entry that sends
+ * any later operations on it to the new table.  Clearing the map is only
+ * safe while no other threads are using it.  This class is thread-safe.
+ *
+ * @author Derk Norton
+ */
+final class ConcurrentLongMap<V> {
+
+    ConcurrentLongMap() {
+        this.table = new Table<>(INITIAL_CAPACITY);
+    }
+
+
+    V get(long key) {
+        Table<V> current = table;
+        while (true) {
+            Node<V> node = current.buckets.get(current.index(key));
+            if (node instanceof Forward) {
+                current = ((Forward<V>) node).table;
+                continue;
+            }
+            for (; node != null; node = node.next) {
+                if (node.key == key) return node.value;
+            }
+            return null;
+        }
+    }
+
+
+    V putIfAbsent(long key, V value) {
+        Table<V> current = table;
+        while (true) {
+            int index = current.index(key);
+            Node<V> head = current.buckets.get(index);
+            if (head instanceof Forward) {
+                current = ((Forward<V>) head).table;
+                continue;
+            }
+            for (Node<V> node = head; node != null; node = node.next) {
+                if (node.key == key) return node.value;
+            }
+            if (current.buckets.compareAndSet(index, head, new Node<>(key, value, head))) {
+                if (size.incrementAndGet() > current.length) {
+                    resize(current);
+                }
+                return null;
+            }
+        }
+    }
+
+
+    boolean remove(long key, V value) {
+        Table<V> current = table;
+        while (true) {
+            int index = current.index(key);
+            Node<V> head = current.buckets.get(index);
+            if (head instanceof Forward) {
+                current = ((Forward<V>) head).table;
+                continue;
+            }
+            Node<V> removed = head;
+            while (removed != null && removed.key != key) {
+                removed = removed.next;
+            }
+            if (removed == null || removed.value != value) return false;
+
+            // the entries in front of the removed entry are copied onto the rest of the chain
+            Node<V> chain = removed.next;
+            for (Node<V> node = head; node != removed; node = node.next) {
+                chain = new Node<>(node.key, node.value, chain);
+            }
+            if (current.buckets.compareAndSet(index, head, chain)) {
+                size.decrementAndGet();
+                return true;
+            }
+        }
+    }
+
+
+    int size() {
+        return size.get();
+    }
+
+
+    boolean isEmpty() {
+        return size.get() == 0;
+    }
+
+
+    long[] keys() {
+        List<Node<V>> nodes = nodes();
+        long[] keys = new long[nodes.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = nodes.get(i).key;
+        }
+        return keys;
+    }
+
+
+    void forEach(ObjLongConsumer<V> action) {
+        for (Node<V> node : nodes()) {
+            action.accept(node.value, node.key);
+        }
+    }
+
+
+    void clear() {
+        table = new Table<>(INITIAL_CAPACITY);
+        size.set(0);
+    }
+
+
+    private List<Node<V>> nodes() {
+        List<Node<V>> nodes = new ArrayList<>(size.get());
+        Table<V> current = table;
+        for (int index = 0; index < current.length; index++) {
+            addNodes(current, index, nodes);
+        }
+        return nodes;
+    }
+
+
+    private void addNodes(Table<V> current, int index, List<Node<V>> nodes) {
+        Node<V> node = current.buckets.get(index);
+        if (node instanceof Forward) {
+            // the bucket was split between two buckets of the next table
+            Table<V> next = ((Forward<V>) node).table;
+            addNodes(next, index, nodes);
+            addNodes(next, index + current.length, nodes);
+            return;
+        }
+        for (; node != null; node = node.next) {
+            nodes.add(node);
+        }
+    }
+
+
+    private void resize(Table<V> current) {
+        // only one thread builds the next table
+        if (!resizing.compareAndSet(false, true)) return;
+        try {
+            if (table != current) return;
+            Table<V> next = new Table<>(2 * current.length);
+            Forward<V> forward = new Forward<>(next);
+            for (int index = 0; index < current.length; index++) {
+                while (true) {
+                    // no other thread uses the new buckets until the old one is forwarded
+                    Node<V> head = current.buckets.get(index);
+                    Node<V> low = null;
+                    Node<V> high = null;
+                    for (Node<V> node = head; node != null; node = node.next) {
+                        if (next.index(node.key) == index) {
+                            low = new Node<>(node.key, node.value, low);
+                        } else {
+                            high = new Node<>(node.key, node.value, high);
+                        }
+                    }
+                    next.buckets.set(index, low);
+                    next.buckets.set(index + current.length, high);
+                    if (current.buckets.compareAndSet(index, head, forward)) break;
+                }
+            }
+            table = next;
+        } finally {
+            resizing.set(false);
+        }
+    }
+
+
+    /**
+     * This class holds an entry in the chain of a bucket.
+     */
+    static private class Node<V> {
+
+        Node(long key, V value, Node<V> next) {
+            this.key = key;
+            this.value = value;
+            this.next = next;
+        }
+
+
+        final long key;
+        final V value;
+        final Node<V> next;
+
+    }
+
+
+    /**
+     * This class marks a bucket whose entries have moved to the next table.
+     */
+    static private final class Forward<V> extends Node<V> {
+
+        Forward(Table<V> table) {
+            super(0L, null, null);
+            this.table = table;
+        }
+
+
+        final Table<V> table;
+
+    }
+
+
+    /**
+     * This class holds the buckets of the map.  The number of buckets is a
+     * power of two so the key of an entry selects the same bucket, or the
+     * same bucket plus the old number of buckets, in a table twice the size.
+     */
+    static private final class Table<V> {
+
+        Table(int length) {
+            this.buckets = new AtomicReferenceArray<>(length);
+            this.length = length;
+        }
+
+
+        int index(long key) {
+            return (int) ((key * 0x9e3779b97f4a7c15L) >>> 32) & (length - 1);
+        }
+
+
+        final AtomicReferenceArray<Node<V>> buckets;
+        final int length;
+
+    }
+
+
+    private volatile Table<V> table;
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicBoolean resizing = new AtomicBoolean();
+    static private final int INITIAL_CAPACITY = 16;
+
+}
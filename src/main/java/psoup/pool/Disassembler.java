@@ -0,0 +1,112 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package psoup.pool;
+
+import java.util.*;
+import psoup.*;
+import psoup.genes.*;
+import psoup.util.*;
+
+
+/**
+ * This class implements the gene visitor pattern and breaks a creature
+ * apart into its individual genes, each of which becomes a single gene
+ * creature (an atom).  It is used by a gene pool to reclaim the genes of
+ * a creature that it is evicting.  The genes are taken apart from a work
+ * stack rather than by recursion, so creatures of any depth can be
+ * disassembled.
+ *
+ * @author Derk Norton
+ */
+final class Disassembler implements GeneVisitor {
+
+    Disassembler() {
+        this.atoms = new ArrayList<>();
+        this.work = new WorkStack();
+    }
+
+
+    @Override
+    public void visit(Branch gene) {
+        Gene left = gene.leftBranch;
+        Gene right = gene.rightBranch;
+        gene.leftBranch = null;
+        gene.rightBranch = null;
+        gene.invalidateSpeciesId();
+        atoms.add(gene);
+        if (right != null) {
+            work.push(right);
+        }
+        if (left != null) {
+            work.push(left);
+        }
+        work.traverse(this);
+    }
+
+
+    @Override
+    public void visit(Chop gene) {
+        atoms.add(gene);
+    }
+
+
+    @Override
+    public void visit(Copy gene) {
+        atoms.add(gene);
+    }
+
+
+    @Override
+    public void visit(Get gene) {
+        atoms.add(gene);
+    }
+
+
+    @Override
+    public void visit(Merge gene) {
+        atoms.add(gene);
+    }
+
+
+    @Override
+    public void visit(Mutate gene) {
+        atoms.add(gene);
+    }
+
+
+    @Override
+    public void visit(Put gene) {
+        atoms.add(gene);
+    }
+
+
+    @Override
+    public void visit(Sequence gene) {
+        for (int i = gene.genes.size() - 1; i >= 0; i--) {
+            work.push(gene.genes.get(i));
+        }
+        gene.genes.clear();
+        gene.invalidateSpeciesId();
+        atoms.add(gene);
+        work.traverse(this);
+    }
+
+
+    List<Gene> disassemble(Gene creature) {
+        atoms.clear();
+        creature.accept(this);
+        return atoms;
+    }
+
+
+    private final List<Gene> atoms;
+    private final WorkStack work;
+
+}
@@ -0,0 +1,31 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package psoup.pool;
+
+
+/**
+ * This enumeration defines the ways in which a gene pool can bring its
+ * number of genes back under its gene budget.  Culling the largest
+ * creatures removes a creature with the most genes.  Culling the largest
+ * species removes a random member of the species with the most members.
+ * Chopping the largest creatures breaks a creature with the most genes
+ * into its individual genes and returns as many of them to the pool as
+ * the budget allows.  In each case the largest are found by sampling a
+ * few species at random rather than by searching the whole pool.
+ *
+ * @author Derk Norton
+ */
+public enum EvictionPolicy {
+
+    CULL_LARGEST_CREATURES,
+    CULL_LARGEST_SPECIES,
+    CHOP_LARGEST_CREATURES
+
+}
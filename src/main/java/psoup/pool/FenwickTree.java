@@ -0,0 +1,100 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package psoup.pool;
+
+import java.util.*;
+
+
+/**
+ * This class implements a Fenwick (binary indexed) tree over a growable
+ * array of weights.  It allows a weight to be changed and an index to be
+ * picked in proportion to its weight in logarithmic time.  This class is
+ * not thread-safe.
+ *
+ * @author Derk Norton
+ */
+final class FenwickTree {
+
+    FenwickTree() {
+        this.weights = new long[INITIAL_CAPACITY];
+        this.tree = new long[INITIAL_CAPACITY + 1];
+        this.total = 0L;
+    }
+
+
+    long total() {
+        return total;
+    }
+
+
+    long weightAt(int index) {
+        return index < weights.length ? weights[index] : 0L;
+    }
+
+
+    void add(int index, long delta) {
+        if (index >= weights.length) {
+            grow(index + 1);
+        }
+        weights[index] += delta;
+        total += delta;
+        for (int i = index + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+
+    int find(long target) {
+        // walk down the tree to the first index whose running total exceeds the target
+        int position = 0;
+        for (int step = Integer.highestOneBit(weights.length); step > 0; step >>= 1) {
+            int next = position + step;
+            if (next < tree.length && tree[next] <= target) {
+                position = next;
+                target -= tree[next];
+            }
+        }
+        return position;
+    }
+
+
+    void clear() {
+        Arrays.fill(weights, 0L);
+        Arrays.fill(tree, 0L);
+        total = 0L;
+    }
+
+
+    private void grow(int minimum) {
+        int capacity = weights.length;
+        while (capacity < minimum) {
+            capacity *= 2;
+        }
+        weights = Arrays.copyOf(weights, capacity);
+
+        // rebuild the tree from the weights in linear time
+        tree = new long[capacity + 1];
+        for (int i = 1; i <= capacity; i++) {
+            tree[i] += weights[i - 1];
+            int parent = i + (i & -i);
+            if (parent <= capacity) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+
+
+    private long[] weights;
+    private long[] tree;
+    private long total;
+
+    static private final int INITIAL_CAPACITY = 1024;
+
+}
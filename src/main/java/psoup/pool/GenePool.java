@@ -13,48 +13,66 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import craterdog.primitives.Probability;
 import craterdog.smart.SmartObject;
 import craterdog.smart.SmartObjectMapper;
-import craterdog.utils.RandomUtils;
 import psoup.*;
 import psoup.genes.*;
 import psoup.util.*;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.io.*;
 
 
 /**
  * This class implements the gene pool.  It is shared by all processors
  * that pull creatures out of it and operate on them before returning
- * the creatures to the pool.  This class is thread-safe.
+ * the creatures to the pool.  The atom species can be found without a map
+ * lookup, random species are picked using the selection policy, and a
+ * gene budget, if one is set, is enforced on each put using the eviction
+ * policy.  This class is thread-safe.
  *
  * @author Derk Norton
  */
 public final class GenePool extends SmartObject<GenePool> implements Pool {
 
-    static public final int BRANCH_ID = new Branch().getSpeciesId();
-    static public final int CHOP_ID = new Chop().getSpeciesId();
-    static public final int COPY_ID = new Copy().getSpeciesId();
-    static public final int GET_ID = new Get().getSpeciesId();
-    static public final int MERGE_ID = new Merge().getSpeciesId();
-    static public final int MUTATE_ID = new Mutate().getSpeciesId();
-    static public final int PUT_ID = new Put().getSpeciesId();
-    static public final int SEQUENCE_ID = new Sequence().getSpeciesId();
+    static public final long BRANCH_ID = new Branch().getSpeciesId();
+    static public final long CHOP_ID = new Chop().getSpeciesId();
+    static public final long COPY_ID = new Copy().getSpeciesId();
+    static public final long GET_ID = new Get().getSpeciesId();
+    static public final long MERGE_ID = new Merge().getSpeciesId();
+    static public final long MUTATE_ID = new Mutate().getSpeciesId();
+    static public final long PUT_ID = new Put().getSpeciesId();
+    static public final long SEQUENCE_ID = new Sequence().getSpeciesId();
+    static private final long[] ATOM_IDS = { BRANCH_ID, CHOP_ID, COPY_ID, GET_ID, MERGE_ID, MUTATE_ID, PUT_ID, SEQUENCE_ID };
+    static private final long ATOM_MULTIPLIER = findAtomMultiplier();
+    static private final int[] ATOM_SLOTS = fillAtomSlots(ATOM_MULTIPLIER);
 
     public GenePool() {
-        pool = new HashMap<>();
+        this(SelectionPolicy.BY_SPECIES);
+    }
+
+
+    public GenePool(SelectionPolicy selectionPolicy) {
+        this.pool = new SpeciesMap();
+        this.selectionPolicy = selectionPolicy;
     }
 
 
     @Override
     public synchronized void initialize(int numberOfCreatures, Probability relativeComplexity, int maximumDepth, Probability temperature) {
         // reset the existing state
+        leaveCensus();
         this.pool.clear();
+        Arrays.fill(this.atoms, null);
+        this.weights = null;
         this.geneCounter.resetCounter();
         this.speciesCounter.resetCounter();
         this.creatureCounter.resetCounter();
 
         // initialize the pool
-        this.temperature = temperature;
-        Initializer initializer = new Initializer(this, relativeComplexity, maximumDepth, geneCounter);
+        this.temperature.set(temperature.toDouble());
+
+        // the genes are counted as the creatures are put into the pool
+        Initializer initializer = new Initializer(this, relativeComplexity, maximumDepth);
         for (int i = 0; i < numberOfCreatures; i++) {
             Gene creature = initializer.generateCreature();
             putCreature(creature);
@@ -90,125 +108,255 @@ public final class GenePool extends SmartObject<GenePool> implements Pool {
 
     @Override
     @JsonIgnore
-    public synchronized Gene getCreature(int speciesId) {
+    public synchronized Gene getCreature(long speciesId) {
 
         // if the gene pool is empty, return null
-        int currentNumberOfSpecies = getCurrentNumberOfSpecies();
+        long currentNumberOfSpecies = getCurrentNumberOfSpecies();
         if (currentNumberOfSpecies == 0L) {
             return null;
         }
 
         // if looking for any species, pick one at random
-        if (speciesId == 0) {
+        if (speciesId == 0L) {
             speciesId = pickRandomSpecies();
         }
 
+        // the atoms have their own fast path
+        int atom = atomIndex(speciesId);
+        if (atom >= 0) {
+            return takeAtom(atom, speciesId);
+        }
+
         // remove a random creature of the desired species (if any exist)
         Species species = pool.get(speciesId);
         if (species == null) return null;
         Gene creature = species.selectMember();
         if (creature == null) return null;
         creatureCounter.decrement();
+        geneCounter.decrement(creature.getNumberOfGenes());
+        if (weights != null) {
+            weights.add(pool.indexOf(speciesId), -1L);
+        }
         if (species.isExtinct()) {
-            pool.remove(speciesId);
+            removeSpecies(speciesId);
             speciesCounter.decrement();
-            raiseTemperature();
+            temperature.raise();
         }
         return creature;
     }
 
 
     @Override
-    public synchronized void putCreature(Gene creature) {
+    public Gene takeCreature(long timeout, TimeUnit unit) throws InterruptedException {
+        // the monitor must not be held while waiting or no creature could be put back
+        return signal.await(() -> getCreature(0L), timeout, unit);
+    }
+
+
+    @Override
+    public void putCreature(Gene creature) {
+        // the species id is cached by the creature so look it up before locking the pool
+        long speciesId = creature.getSpeciesId();
+        addCreature(speciesId, creature);
+        signal.signal();
+    }
+
+
+    @Override
+    @JsonIgnore
+    public synchronized List<Gene> getCreatures(long speciesId, int count) {
+        // take all of the creatures while holding the monitor once
+        List<Gene> creatures = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Gene creature = getCreature(speciesId);
+            if (creature == null) break;
+            creatures.add(creature);
+        }
+        return creatures;
+    }
+
+
+    @Override
+    public void putCreatures(Collection<Gene> creatures) {
+        // look up the cached species ids before locking the pool
+        long[] speciesIds = new long[creatures.size()];
+        int index = 0;
+        for (Gene creature : creatures) {
+            speciesIds[index++] = creature.getSpeciesId();
+        }
+        addCreatures(speciesIds, creatures);
+        signal.signalAll();
+    }
+
+
+    private synchronized void addCreatures(long[] speciesIds, Collection<Gene> creatures) {
+        int index = 0;
+        for (Gene creature : creatures) {
+            addCreature(speciesIds[index++], creature);
+        }
+    }
+
+
+    private synchronized void addCreature(long speciesId, Gene creature) {
+        insertCreature(speciesId, creature);
+        enforceBudget();
+    }
+
+
+    private void insertCreature(long speciesId, Gene creature) {
         // retrieve the list of creatures that belong to the same species
-        int speciesId = creature.getSpeciesId();
-        Species species = pool.get(speciesId);
+        int atom = atomIndex(speciesId);
+        Species species = atom >= 0 ? findAtom(atom, speciesId) : pool.get(speciesId);
 
         // if this is a new species create a new creature list for it
         if (species == null) {
             species = new Species();
             pool.put(speciesId, species);
+            if (atom >= 0) {
+                atoms[atom] = species;
+            }
+            if (census != null) {
+                census.add(speciesId);
+            }
             speciesCounter.increment();
-            lowerTemperature();
+            temperature.lower();
         }
 
         // add the new creature to the list
         species.members.add(creature);
         creatureCounter.increment();
+        geneCounter.increment(creature.getNumberOfGenes());
+        if (weights != null) {
+            weights.add(pool.indexOf(speciesId), 1L);
+        }
     }
 
 
     @Override
-    public synchronized int pickRandomSpecies() {
-        int speciesId = 0;
-        int numberOfSpecies = getCurrentNumberOfSpecies();
+    public synchronized long pickRandomSpecies() {
+        long speciesId = 0L;
+        int numberOfSpecies = pool.size();
         if (numberOfSpecies > 0) {
-            int index = RandomUtils.pickRandomIndex(numberOfSpecies);
-            speciesId = (Integer) pool.keySet().toArray()[index];
+            int index;
+            if (selectionPolicy == SelectionPolicy.BY_CREATURE) {
+                // pick a random creature and use its species
+                if (weights == null) {
+                    rebuildWeights();
+                }
+                index = weights.find(ThreadLocalRandom.current().nextLong(weights.total()));
+            } else {
+                index = ThreadLocalRandom.current().nextInt(numberOfSpecies);
+            }
+            speciesId = pool.idAt(index);
         }
         return speciesId;
     }
 
 
+    public synchronized int getGeneBudget() {
+        return geneBudget;
+    }
+
+
+    public synchronized void setGeneBudget(int geneBudget) {
+        // a budget of zero means the pool is unbounded
+        this.geneBudget = geneBudget;
+    }
+
+
+    public synchronized EvictionPolicy getEvictionPolicy() {
+        return evictionPolicy;
+    }
+
+
+    public synchronized void setEvictionPolicy(EvictionPolicy evictionPolicy) {
+        this.evictionPolicy = evictionPolicy;
+    }
+
+
+    @JsonIgnore
+    public int getNumberOfSpins() {
+        return signal.getNumberOfSpins();
+    }
+
+
+    public void setNumberOfSpins(int numberOfSpins) {
+        // the number of times a taking thread retries before parking
+        signal.setNumberOfSpins(numberOfSpins);
+    }
+
+
+    public synchronized SelectionPolicy getSelectionPolicy() {
+        return selectionPolicy;
+    }
+
+
+    public synchronized void setSelectionPolicy(SelectionPolicy selectionPolicy) {
+        // the weights are rebuilt the next time they are needed
+        this.selectionPolicy = selectionPolicy;
+        this.weights = null;
+    }
+
+
     @Override
     @JsonIgnore
-    public synchronized int getCurrentNumberOfGenes() {
+    public synchronized long getCurrentNumberOfGenes() {
         return geneCounter.getCurrentValue();
     }
 
 
     @Override
     @JsonIgnore
-    public synchronized int getLowestNumberOfGenes() {
+    public synchronized long getLowestNumberOfGenes() {
         return geneCounter.getLowWaterMark();
     }
 
 
     @Override
     @JsonIgnore
-    public synchronized int getHighestNumberOfGenes() {
+    public synchronized long getHighestNumberOfGenes() {
         return geneCounter.getHighWaterMark();
     }
 
 
     @Override
     @JsonIgnore
-    public synchronized int getCurrentNumberOfSpecies() {
+    public synchronized long getCurrentNumberOfSpecies() {
         return speciesCounter.getCurrentValue();
     }
 
 
     @Override
     @JsonIgnore
-    public synchronized int getLowestNumberOfSpecies() {
+    public synchronized long getLowestNumberOfSpecies() {
         return speciesCounter.getLowWaterMark();
     }
 
 
     @Override
     @JsonIgnore
-    public synchronized int getHighestNumberOfSpecies() {
+    public synchronized long getHighestNumberOfSpecies() {
         return speciesCounter.getHighWaterMark();
     }
 
 
     @Override
     @JsonIgnore
-    public synchronized int getCurrentNumberOfCreatures() {
+    public synchronized long getCurrentNumberOfCreatures() {
         return creatureCounter.getCurrentValue();
     }
 
 
     @Override
     @JsonIgnore
-    public synchronized int getLowestNumberOfCreatures() {
+    public synchronized long getLowestNumberOfCreatures() {
         return creatureCounter.getLowWaterMark();
     }
 
 
     @Override
     @JsonIgnore
-    public synchronized int getHighestNumberOfCreatures() {
+    public synchronized long getHighestNumberOfCreatures() {
         return creatureCounter.getHighWaterMark();
     }
 
@@ -222,47 +370,220 @@ public final class GenePool extends SmartObject<GenePool> implements Pool {
 
 
     @Override
-    public synchronized Probability getTemperature() {
-        return temperature;
+    public Probability getTemperature() {
+        return new Probability(temperature.get());
     }
 
 
     @Override
-    public synchronized void setTemperature(Probability temperature) {
-        this.temperature = temperature;
+    public void setTemperature(Probability temperature) {
+        this.temperature.set(temperature.toDouble());
     }
 
 
     @Override
-    public synchronized boolean weightedCoinFlip(Probability probability) {
-        boolean result = Probability.coinToss(Probability.and(probability, temperature));
-        return result;
+    public boolean weightedCoinFlip(Probability probability) {
+        // the temperature is atomic so coin flips do not need the monitor
+        return temperature.weightedCoinFlip(probability.toDouble());
     }
 
 
-    private void raiseTemperature() {
-        double current = temperature.toDouble();
-        if (current < 1.0d - TEMPERATURE_DELTA) {
-            temperature = new Probability(current + TEMPERATURE_DELTA);
+    private Gene takeAtom(int atom, long speciesId) {
+        Species species = findAtom(atom, speciesId);
+        if (species == null || species.isExtinct()) return null;
+
+        // pop the last member and retire the species if that was the last one
+        List<Gene> members = species.members;
+        Gene creature = members.remove(members.size() - 1);
+        creatureCounter.decrement();
+        geneCounter.decrement();
+        if (weights != null) {
+            weights.add(pool.indexOf(speciesId), -1L);
+        }
+        if (members.isEmpty()) {
+            removeSpecies(speciesId);
+            atoms[atom] = null;
+            speciesCounter.decrement();
+            temperature.raise();
+        }
+        return creature;
+    }
+
+
+    private void enforceBudget() {
+        // evict only a few creatures per put so that the cost is spread out
+        for (int i = 0; i < MAXIMUM_EVICTIONS; i++) {
+            if (geneBudget <= 0 || geneCounter.getCurrentValue() <= geneBudget || pool.isEmpty()) return;
+            evictCreature();
+        }
+    }
+
+
+    private void evictCreature() {
+        switch (evictionPolicy) {
+            case CULL_LARGEST_SPECIES:
+                getCreature(sampleLargestSpecies());
+                break;
+            case CHOP_LARGEST_CREATURES:
+                // return as many of the victim's genes to the pool as the budget allows
+                Gene victim = getCreature(sampleLargestCreature());
+                if (victim != null) {
+                    List<Gene> atoms = new Disassembler().disassemble(victim);
+                    int room = Math.min(atoms.size(), (int) (geneBudget - geneCounter.getCurrentValue()));
+                    for (int i = 0; i < room; i++) {
+                        Gene atom = atoms.get(i);
+                        insertCreature(atom.getSpeciesId(), atom);
+                    }
+                }
+                break;
+            default:
+                getCreature(sampleLargestCreature());
+                break;
+        }
+    }
+
+
+    private long sampleLargestCreature() {
+        // all members of a species have the same structure and therefore the same size
+        long speciesId = 0L;
+        int largest = -1;
+        for (int i = 0; i < EVICTION_SAMPLE_SIZE; i++) {
+            int index = ThreadLocalRandom.current().nextInt(pool.size());
+            Species species = pool.speciesAt(index);
+            if (species.isExtinct()) continue;
+            int size = species.members.get(0).getNumberOfGenes();
+            if (size > largest) {
+                largest = size;
+                speciesId = pool.idAt(index);
+            }
+        }
+        return speciesId;
+    }
+
+
+    private long sampleLargestSpecies() {
+        long speciesId = 0L;
+        int largest = -1;
+        for (int i = 0; i < EVICTION_SAMPLE_SIZE; i++) {
+            int index = ThreadLocalRandom.current().nextInt(pool.size());
+            int size = pool.speciesAt(index).members.size();
+            if (size > largest) {
+                largest = size;
+                speciesId = pool.idAt(index);
+            }
         }
+        return speciesId;
     }
 
 
-    private void lowerTemperature() {
-        double current = temperature.toDouble();
-        if (current > TEMPERATURE_DELTA) {
-            temperature = new Probability(current - TEMPERATURE_DELTA);
+    synchronized void joinCensus(SpeciesCensus census) {
+        // the species already in the pool are counted by the new census
+        leaveCensus();
+        this.census = census;
+        for (int i = 0; i < pool.size(); i++) {
+            census.add(pool.idAt(i));
         }
     }
 
 
-    public Map<Integer, Species> pool;
-    public Probability temperature;
+    private void leaveCensus() {
+        if (census != null) {
+            for (int i = 0; i < pool.size(); i++) {
+                census.remove(pool.idAt(i));
+            }
+        }
+    }
+
+
+    private void removeSpecies(long speciesId) {
+        if (census != null) {
+            census.remove(speciesId);
+        }
+        if (weights == null) {
+            pool.remove(speciesId);
+            return;
+        }
+
+        // the last species is moved into the gap left by the removed one so its weight moves too
+        int index = pool.indexOf(speciesId);
+        pool.remove(speciesId);
+        int last = pool.size();
+        if (index != last) {
+            long weight = weights.weightAt(last);
+            weights.add(index, weight - weights.weightAt(index));
+            weights.add(last, -weight);
+        }
+    }
+
+
+    private void rebuildWeights() {
+        weights = new FenwickTree();
+        for (int i = 0; i < pool.size(); i++) {
+            weights.add(i, pool.speciesAt(i).members.size());
+        }
+    }
+
+
+    private Species findAtom(int atom, long speciesId) {
+        // the reference is filled in lazily since a loaded pool starts without any
+        Species species = atoms[atom];
+        if (species == null) {
+            species = pool.get(speciesId);
+            atoms[atom] = species;
+        }
+        return species;
+    }
+
+
+    static int atomIndex(long speciesId) {
+        // the atom ids hash to distinct slots so a single comparison confirms the atom
+        int atom = ATOM_SLOTS[atomSlot(speciesId, ATOM_MULTIPLIER)];
+        return atom >= 0 && ATOM_IDS[atom] == speciesId ? atom : -1;
+    }
+
+
+    static private int atomSlot(long speciesId, long multiplier) {
+        return (int) ((speciesId * multiplier) >>> (Long.SIZE - ATOM_SLOT_BITS));
+    }
+
+
+    static private long findAtomMultiplier() {
+        // the atom ids are only known at run time so search for a multiplier that hashes them perfectly
+        long multiplier = 0x9e3779b97f4a7c15L;
+        while (fillAtomSlots(multiplier) == null) {
+            multiplier += 2L;
+        }
+        return multiplier;
+    }
+
+
+    static private int[] fillAtomSlots(long multiplier) {
+        int[] slots = new int[1 << ATOM_SLOT_BITS];
+        Arrays.fill(slots, -1);
+        for (int i = 0; i < ATOM_IDS.length; i++) {
+            int slot = atomSlot(ATOM_IDS[i], multiplier);
+            if (slots[slot] >= 0) return null;
+            slots[slot] = i;
+        }
+        return slots;
+    }
+
+
+    public SpeciesMap pool;
     public final SharedCounter geneCounter = new SharedCounter();
     public final SharedCounter speciesCounter = new SharedCounter();
     public final SharedCounter creatureCounter = new SharedCounter();
-
-    static private final double TEMPERATURE_DELTA = 0.00001d;
+    private final Species[] atoms = new Species[ATOM_IDS.length];
+    private SelectionPolicy selectionPolicy;
+    private FenwickTree weights;  // only used when picking by creature
+    private int geneBudget;
+    private EvictionPolicy evictionPolicy = EvictionPolicy.CULL_LARGEST_CREATURES;
+    private final AtomicTemperature temperature = new AtomicTemperature();
+    private final Signal signal = new Signal();
+    private SpeciesCensus census;  // the census of the island pool that holds this pool, if any
+    static private final int ATOM_SLOT_BITS = 4;  // sixteen slots for the eight atoms
+    static private final int MAXIMUM_EVICTIONS = 4;
+    static private final int EVICTION_SAMPLE_SIZE = 8;
 
 
 }
@@ -18,43 +18,56 @@ import psoup.util.*;
 
 
 /**
- * This class implements the gene visitor pattern and recursively
- * "grows" each gene in a new creature based on the desired size
- * and complexity of the creatures..
+ * This class implements the gene visitor pattern and "grows" each gene
+ * in a new creature based on the desired size and complexity of the
+ * creatures.  The new genes are grown from a work stack, tagged with
+ * their depth, rather than by recursion.
  *
  * @author Derk Norton
  */
 public final class Initializer implements GeneVisitor {
 
-    public Initializer(Pool pool, Probability relativeComplexity, int maximumDepth, SharedCounter geneCounter) {
+    public Initializer(Pool pool, Probability relativeComplexity, int maximumDepth) {
         this.pool = pool;
         this.relativeComplexity = relativeComplexity;
         this.currentDepth = 0;
         this.maximumDepth = maximumDepth;
-        this.geneCounter = geneCounter;
+        this.work = new WorkStack();
     }
 
 
     @Override
     public void visit(Branch gene) {
+        // the depth of a gene comes with it from the work stack
+        currentDepth = work.tag();
 
-        // initialize the left branch
+        // grow the left branch
+        Gene left = null;
         if (coinFlip()) {
-            Gene left = generateGene();
+            left = generateGene();
             gene.leftBranch = left;
-            initializeGene(left);
+            gene.invalidateSpeciesId();
         }
 
-        // initialize the right branch
+        // grow the right branch
+        Gene right = null;
         if (coinFlip()) {
-            Gene right = generateGene();
+            right = generateGene();
             gene.rightBranch = right;
-            initializeGene(right);
+            gene.invalidateSpeciesId();
         }
 
         // initialize the probability
         gene.probability = new Probability();
 
+        // initialize the left branch and then the right branch
+        if (right != null) {
+            scheduleGene(right);
+        }
+        if (left != null) {
+            scheduleGene(left);
+        }
+        work.traverse(this);
     }
 
 
@@ -99,14 +112,23 @@ public final class Initializer implements GeneVisitor {
 
     @Override
     public void visit(Sequence gene) {
-        // initialize the sequence
+        // the depth of a gene comes with it from the work stack
+        currentDepth = work.tag();
+
+        // grow the sequence
         int currentLength = currentDepth;
         while (coinFlip() && currentLength < maximumDepth) {
             Gene item = generateGene();
             gene.genes.add(item);
+            gene.invalidateSpeciesId();
             currentLength++;
-            initializeGene(item);
         }
+
+        // initialize the items in order
+        for (int i = gene.genes.size() - 1; i >= 0; i--) {
+            scheduleGene(gene.genes.get(i));
+        }
+        work.traverse(this);
     }
 
 
@@ -157,17 +179,14 @@ public final class Initializer implements GeneVisitor {
                 gene = new Sequence();
                 break;
         }
-        geneCounter.increment();
 
         return gene;
     }
 
 
-    private void initializeGene(Gene gene) {
+    private void scheduleGene(Gene gene) {
         if (currentDepth < maximumDepth) {
-            currentDepth++;
-            gene.accept(this);
-            currentDepth--;
+            work.push(gene, currentDepth + 1);
         }
     }
 
@@ -182,6 +201,6 @@ public final class Initializer implements GeneVisitor {
     private final Probability relativeComplexity;
     private int currentDepth;
     private final int maximumDepth;
-    private final SharedCounter geneCounter;
+    private final WorkStack work;
 
 }
@@ -0,0 +1,320 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package psoup.pool;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import craterdog.primitives.Probability;
+import craterdog.smart.SmartObject;
+import craterdog.smart.SmartObjectMapper;
+import psoup.*;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.io.*;
+
+
+/**
+ * This class implements a gene pool that is divided into a number of
+ * islands, each of which is a separate gene pool.  An island engine gives
+ * each of its processing threads its own island so that the threads do
+ * not contend with each other, and periodically migrates creatures
+ * between neighboring islands.  The islands remain synchronized gene
+ * pools since migrants are put on them by the neighboring threads, and a
+ * lock that only one thread takes costs next to nothing.  When used as a
+ * single pool the islands are treated as one population and creatures
+ * are taken from and returned to randomly chosen islands.  The numbers of
+ * creatures and genes are summed across the islands.  A species that has
+ * migrated is held by several islands, so the islands share a census that
+ * counts each species once and keeps true water marks for the number of
+ * species.  The water marks for the creatures and genes are the sums of
+ * the water marks of the islands, which were not necessarily reached at
+ * the same time, so they only bound the true water marks.  This class is
+ * thread-safe.
+ *
+ * @author Derk Norton
+ */
+public final class IslandPool extends SmartObject<IslandPool> implements Pool {
+
+    public IslandPool() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+
+    public IslandPool(int numberOfIslands) {
+        GenePool[] islands = new GenePool[numberOfIslands];
+        for (int i = 0; i < numberOfIslands; i++) {
+            islands[i] = new GenePool();
+        }
+        setIslands(islands);
+    }
+
+
+    @Override
+    public void initialize(int numberOfCreatures, Probability relativeComplexity, int maximumDepth, Probability temperature) {
+        // divide the creatures evenly between the islands
+        int numberOfIslands = islands.length;
+        for (int i = 0; i < numberOfIslands; i++) {
+            int share = numberOfCreatures / numberOfIslands;
+            if (i < numberOfCreatures % numberOfIslands) share++;
+            islands[i].initialize(share, relativeComplexity, maximumDepth, temperature);
+        }
+        census.resetWaterMarks();
+    }
+
+
+    static public IslandPool loadGenePool(String fileName) {
+        SmartObjectMapper mapper = new SmartObjectMapper();
+        try (FileInputStream fileInputStream = new FileInputStream(fileName)) {
+            IslandPool pool = mapper.readValue(fileInputStream, IslandPool.class);
+            return pool;
+        } catch (IOException e) {
+            throw new RuntimeException("Illegal pool file specified: " + fileName, e);
+        }
+    }
+
+
+    static public void storeGenePool(IslandPool pool, String fileName) {
+        SmartObjectMapper mapper = new SmartObjectMapper();
+        try (FileOutputStream fileOutputStream = new FileOutputStream(fileName)) {
+            mapper.writeValue(fileOutputStream, pool);
+        } catch (IOException e) {
+            throw new RuntimeException("Illegal pool file specified: " + fileName, e);
+        }
+    }
+
+
+    public GenePool[] getIslands() {
+        return islands;
+    }
+
+
+    public void setIslands(GenePool[] islands) {
+        // the species of a loaded pool are counted by a new census
+        SpeciesCensus census = new SpeciesCensus();
+        for (GenePool island : islands) {
+            island.joinCensus(census);
+        }
+        census.resetWaterMarks();
+        this.census = census;
+        this.islands = islands;
+    }
+
+
+    @JsonIgnore
+    public int getNumberOfIslands() {
+        return islands.length;
+    }
+
+
+    public Pool getIsland(int index) {
+        return islands[index];
+    }
+
+
+    @Override
+    @JsonIgnore
+    public Gene getCreature(long speciesId) {
+        // try each island in turn starting with a random one
+        int numberOfIslands = islands.length;
+        int start = ThreadLocalRandom.current().nextInt(numberOfIslands);
+        for (int i = 0; i < numberOfIslands; i++) {
+            Gene creature = islands[(start + i) % numberOfIslands].getCreature(speciesId);
+            if (creature != null) return creature;
+        }
+        return null;
+    }
+
+
+    @Override
+    public Gene takeCreature(long timeout, TimeUnit unit) throws InterruptedException {
+        // a creature may be put back on any island so wait on random islands a slice at a time
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (true) {
+            Gene creature = getCreature(0L);
+            if (creature != null) return creature;
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0L) return null;
+            GenePool island = islands[ThreadLocalRandom.current().nextInt(islands.length)];
+            creature = island.takeCreature(Math.min(remaining, WAIT_SLICE), TimeUnit.NANOSECONDS);
+            if (creature != null) return creature;
+        }
+    }
+
+
+    @Override
+    public void putCreature(Gene creature) {
+        islands[ThreadLocalRandom.current().nextInt(islands.length)].putCreature(creature);
+    }
+
+
+    @Override
+    @JsonIgnore
+    public List<Gene> getCreatures(long speciesId, int count) {
+        // take the creatures from each island in turn starting with a random one
+        List<Gene> creatures = new ArrayList<>(count);
+        int numberOfIslands = islands.length;
+        int start = ThreadLocalRandom.current().nextInt(numberOfIslands);
+        for (int i = 0; i < numberOfIslands && creatures.size() < count; i++) {
+            creatures.addAll(islands[(start + i) % numberOfIslands].getCreatures(speciesId, count - creatures.size()));
+        }
+        return creatures;
+    }
+
+
+    @Override
+    public void putCreatures(Collection<Gene> creatures) {
+        islands[ThreadLocalRandom.current().nextInt(islands.length)].putCreatures(creatures);
+    }
+
+
+    @Override
+    public long pickRandomSpecies() {
+        // weight each island by the number of species it holds
+        long total = 0L;
+        for (GenePool island : islands) {
+            total += island.getCurrentNumberOfSpecies();
+        }
+        if (total <= 0) return 0L;
+        long index = ThreadLocalRandom.current().nextLong(total);
+        for (GenePool island : islands) {
+            index -= island.getCurrentNumberOfSpecies();
+            if (index < 0) return island.pickRandomSpecies();
+        }
+        return islands[islands.length - 1].pickRandomSpecies();
+    }
+
+
+    @Override
+    @JsonIgnore
+    public long getCurrentNumberOfGenes() {
+        long sum = 0L;
+        for (GenePool island : islands) {
+            sum += island.getCurrentNumberOfGenes();
+        }
+        return sum;
+    }
+
+
+    @Override
+    @JsonIgnore
+    public long getLowestNumberOfGenes() {
+        long sum = 0L;
+        for (GenePool island : islands) {
+            sum += island.getLowestNumberOfGenes();
+        }
+        return sum;
+    }
+
+
+    @Override
+    @JsonIgnore
+    public long getHighestNumberOfGenes() {
+        long sum = 0L;
+        for (GenePool island : islands) {
+            sum += island.getHighestNumberOfGenes();
+        }
+        return sum;
+    }
+
+
+    @Override
+    @JsonIgnore
+    public long getCurrentNumberOfSpecies() {
+        return census.getCurrentNumberOfSpecies();
+    }
+
+
+    @Override
+    @JsonIgnore
+    public long getLowestNumberOfSpecies() {
+        return census.getLowestNumberOfSpecies();
+    }
+
+
+    @Override
+    @JsonIgnore
+    public long getHighestNumberOfSpecies() {
+        return census.getHighestNumberOfSpecies();
+    }
+
+
+    @Override
+    @JsonIgnore
+    public long getCurrentNumberOfCreatures() {
+        long sum = 0L;
+        for (GenePool island : islands) {
+            sum += island.getCurrentNumberOfCreatures();
+        }
+        return sum;
+    }
+
+
+    @Override
+    @JsonIgnore
+    public long getLowestNumberOfCreatures() {
+        long sum = 0L;
+        for (GenePool island : islands) {
+            sum += island.getLowestNumberOfCreatures();
+        }
+        return sum;
+    }
+
+
+    @Override
+    @JsonIgnore
+    public long getHighestNumberOfCreatures() {
+        long sum = 0L;
+        for (GenePool island : islands) {
+            sum += island.getHighestNumberOfCreatures();
+        }
+        return sum;
+    }
+
+
+    @Override
+    public void resetWaterMarks() {
+        for (GenePool island : islands) {
+            island.resetWaterMarks();
+        }
+        census.resetWaterMarks();
+    }
+
+
+    @Override
+    @JsonIgnore
+    public Probability getTemperature() {
+        // the islands heat and cool independently so report their average
+        double sum = 0.0d;
+        for (GenePool island : islands) {
+            sum += island.getTemperature().toDouble();
+        }
+        return new Probability(sum / islands.length);
+    }
+
+
+    @Override
+    public void setTemperature(Probability temperature) {
+        for (GenePool island : islands) {
+            island.setTemperature(temperature);
+        }
+    }
+
+
+    @Override
+    public boolean weightedCoinFlip(Probability probability) {
+        return islands[ThreadLocalRandom.current().nextInt(islands.length)].weightedCoinFlip(probability);
+    }
+
+
+    private GenePool[] islands;
+    private SpeciesCensus census;
+    static private final long WAIT_SLICE = TimeUnit.MILLISECONDS.toNanos(10);
+
+}
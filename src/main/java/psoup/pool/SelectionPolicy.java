@@ -0,0 +1,27 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package psoup.pool;
+
+
+/**
+ * This enumeration defines the ways in which a gene pool can pick a
+ * random species.  Picking by species gives every species the same
+ * chance of being picked no matter how many members it has.  Picking
+ * by creature gives every creature the same chance of being picked so
+ * a species is picked in proportion to the number of its members.
+ *
+ * @author Derk Norton
+ */
+public enum SelectionPolicy {
+
+    BY_SPECIES,
+    BY_CREATURE
+
+}
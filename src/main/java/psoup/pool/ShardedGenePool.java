@@ -0,0 +1,336 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package psoup.pool;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import craterdog.primitives.Probability;
+import craterdog.smart.SmartObject;
+import craterdog.smart.SmartObjectMapper;
+import psoup.*;
+import psoup.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.io.*;
+
+
+/**
+ * This class implements a gene pool that partitions its species across
+ * a number of shards based on their species ids.  Each shard is locked
+ * independently so processors working on species in different shards do
+ * not contend with each other.  The species and creature counters and the
+ * temperature are updated atomically rather than under a global lock.
+ * A thread taking a creature from an empty pool spins briefly and then
+ * parks until another thread puts a creature back.
+ * This class is thread-safe.
+ *
+ * @author Derk Norton
+ */
+public final class ShardedGenePool extends SmartObject<ShardedGenePool> implements Pool {
+
+    public ShardedGenePool() {
+        this(4 * Runtime.getRuntime().availableProcessors());
+    }
+
+
+    public ShardedGenePool(int numberOfShards) {
+        // round the number of shards up to a power of two so a shard can be picked with a mask
+        int capacity = 1;
+        while (capacity < numberOfShards) {
+            capacity <<= 1;
+        }
+        this.shards = new Shard[capacity];
+        for (int i = 0; i < capacity; i++) {
+            shards[i] = new Shard();
+        }
+    }
+
+
+    @Override
+    public void initialize(int numberOfCreatures, Probability relativeComplexity, int maximumDepth, Probability temperature) {
+        // reset the existing state
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                shard.pool.clear();
+                shard.size = 0;
+            }
+        }
+        this.geneCounter.resetCounter();
+        this.speciesCounter.resetCounter();
+        this.creatureCounter.resetCounter();
+
+        // initialize the pool, the genes are counted as the creatures are put into it
+        setTemperature(temperature);
+        Initializer initializer = new Initializer(this, relativeComplexity, maximumDepth);
+        for (int i = 0; i < numberOfCreatures; i++) {
+            Gene creature = initializer.generateCreature();
+            putCreature(creature);
+        }
+
+        // set the high and low water marks
+        this.geneCounter.resetWaterMarks();
+        this.speciesCounter.resetWaterMarks();
+        this.creatureCounter.resetWaterMarks();
+    }
+
+
+    static public ShardedGenePool loadGenePool(String fileName) {
+        SmartObjectMapper mapper = new SmartObjectMapper();
+        try (FileInputStream fileInputStream = new FileInputStream(fileName)) {
+            ShardedGenePool pool = mapper.readValue(fileInputStream, ShardedGenePool.class);
+            return pool;
+        } catch (IOException e) {
+            throw new RuntimeException("Illegal pool file specified: " + fileName, e);
+        }
+    }
+
+
+    static public void storeGenePool(ShardedGenePool pool, String fileName) {
+        SmartObjectMapper mapper = new SmartObjectMapper();
+        try (FileOutputStream fileOutputStream = new FileOutputStream(fileName)) {
+            mapper.writeValue(fileOutputStream, pool);
+        } catch (IOException e) {
+            throw new RuntimeException("Illegal pool file specified: " + fileName, e);
+        }
+    }
+
+
+    @Override
+    @JsonIgnore
+    public Gene getCreature(long speciesId) {
+        // if looking for any species, pick one at random
+        if (speciesId == 0L) {
+            speciesId = pickRandomSpecies();
+            if (speciesId == 0L) return null;
+        }
+
+        // remove a random creature of the desired species (if any exist)
+        Shard shard = shardFor(speciesId);
+        synchronized (shard) {
+            Species species = shard.pool.get(speciesId);
+            if (species == null) return null;
+            Gene creature = species.selectMember();
+            if (creature == null) return null;
+            creatureCounter.decrement();
+            geneCounter.decrement(creature.getNumberOfGenes());
+            if (species.isExtinct()) {
+                shard.pool.remove(speciesId);
+                shard.size--;
+                speciesCounter.decrement();
+                temperature.raise();
+            }
+            return creature;
+        }
+    }
+
+
+    @Override
+    public Gene takeCreature(long timeout, TimeUnit unit) throws InterruptedException {
+        return signal.await(() -> getCreature(0L), timeout, unit);
+    }
+
+
+    @Override
+    public void putCreature(Gene creature) {
+        // the species id and size are cached by the creature so look them up before locking the shard
+        long speciesId = creature.getSpeciesId();
+        int numberOfGenes = creature.getNumberOfGenes();
+        Shard shard = shardFor(speciesId);
+        synchronized (shard) {
+            // retrieve the list of creatures that belong to the same species
+            Species species = shard.pool.get(speciesId);
+
+            // if this is a new species create a new creature list for it
+            if (species == null) {
+                species = new Species();
+                shard.pool.put(speciesId, species);
+                shard.size++;
+                speciesCounter.increment();
+                temperature.lower();
+            }
+
+            // add the new creature to the list
+            species.members.add(creature);
+            creatureCounter.increment();
+            geneCounter.increment(numberOfGenes);
+        }
+        signal.signal();
+    }
+
+
+    @Override
+    public long pickRandomSpecies() {
+        // the species are spread evenly over the shards by their ids so a random shard is nearly as good as a weighted one
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int attempt = 0; attempt < PICK_ATTEMPTS; attempt++) {
+            if (speciesCounter.getCurrentValue() <= 0L) return 0L;
+            long speciesId = pickSpecies(shards[random.nextInt(shards.length)], random);
+            if (speciesId != 0L) return speciesId;
+        }
+
+        // the pool is nearly empty so look for a shard that still has species, starting at a random one
+        int start = random.nextInt(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            long speciesId = pickSpecies(shards[(start + i) & (shards.length - 1)], random);
+            if (speciesId != 0L) return speciesId;
+        }
+        return 0L;
+    }
+
+
+    @Override
+    @JsonIgnore
+    public long getCurrentNumberOfGenes() {
+        return geneCounter.getCurrentValue();
+    }
+
+
+    @Override
+    @JsonIgnore
+    public long getLowestNumberOfGenes() {
+        return geneCounter.getLowWaterMark();
+    }
+
+
+    @Override
+    @JsonIgnore
+    public long getHighestNumberOfGenes() {
+        return geneCounter.getHighWaterMark();
+    }
+
+
+    @Override
+    @JsonIgnore
+    public long getCurrentNumberOfSpecies() {
+        return speciesCounter.getCurrentValue();
+    }
+
+
+    @Override
+    @JsonIgnore
+    public long getLowestNumberOfSpecies() {
+        return speciesCounter.getLowWaterMark();
+    }
+
+
+    @Override
+    @JsonIgnore
+    public long getHighestNumberOfSpecies() {
+        return speciesCounter.getHighWaterMark();
+    }
+
+
+    @Override
+    @JsonIgnore
+    public long getCurrentNumberOfCreatures() {
+        return creatureCounter.getCurrentValue();
+    }
+
+
+    @Override
+    @JsonIgnore
+    public long getLowestNumberOfCreatures() {
+        return creatureCounter.getLowWaterMark();
+    }
+
+
+    @Override
+    @JsonIgnore
+    public long getHighestNumberOfCreatures() {
+        return creatureCounter.getHighWaterMark();
+    }
+
+
+    @Override
+    public void resetWaterMarks() {
+        geneCounter.resetWaterMarks();
+        speciesCounter.resetWaterMarks();
+        creatureCounter.resetWaterMarks();
+    }
+
+
+    @JsonIgnore
+    public int getNumberOfSpins() {
+        return signal.getNumberOfSpins();
+    }
+
+
+    public void setNumberOfSpins(int numberOfSpins) {
+        // the number of times a taking thread retries before parking
+        signal.setNumberOfSpins(numberOfSpins);
+    }
+
+
+    @Override
+    public Probability getTemperature() {
+        return new Probability(temperature.get());
+    }
+
+
+    @Override
+    public void setTemperature(Probability temperature) {
+        this.temperature.set(temperature.toDouble());
+    }
+
+
+    @Override
+    public boolean weightedCoinFlip(Probability probability) {
+        return temperature.weightedCoinFlip(probability.toDouble());
+    }
+
+
+    private long pickSpecies(Shard shard, ThreadLocalRandom random) {
+        // an empty shard is skipped without taking its lock
+        if (shard.size == 0) return 0L;
+        synchronized (shard) {
+            int numberOfSpecies = shard.pool.size();
+            if (numberOfSpecies == 0) return 0L;
+            return shard.pool.idAt(random.nextInt(numberOfSpecies));
+        }
+    }
+
+
+    private Shard shardFor(long speciesId) {
+        // species ids are already well mixed hashes so their low bits pick the shard
+        return shards[(int) speciesId & (shards.length - 1)];
+    }
+
+
+    /**
+     * This class holds the species belonging to a single shard of the pool.
+     * The shard itself is used as the lock that guards its species.
+     */
+    static public final class Shard extends SmartObject<Shard> {
+
+        public SpeciesMap getPool() {
+            return pool;
+        }
+
+
+        public synchronized void setPool(SpeciesMap pool) {
+            this.pool = pool;
+            this.size = pool.size();
+        }
+
+
+        private SpeciesMap pool = new SpeciesMap();
+        private volatile int size;
+
+    }
+
+
+    public Shard[] shards;
+    public final SharedCounter geneCounter = new SharedCounter();
+    public final SharedCounter speciesCounter = new SharedCounter();
+    public final SharedCounter creatureCounter = new SharedCounter();
+    private final AtomicTemperature temperature = new AtomicTemperature();
+    private final Signal signal = new Signal();
+    static private final int PICK_ATTEMPTS = 8;
+
+}
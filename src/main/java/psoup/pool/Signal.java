@@ -0,0 +1,121 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package psoup.pool;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+
+/**
+ * This class lets threads wait for a pool to be given a creature without
+ * burning a processor.  A waiting thread first retries a number of times,
+ * yielding in between, since a creature is usually put back quickly.  It
+ * then parks on a condition until the pool signals that a creature was
+ * put back or the timeout expires.  Signalling is cheap when no threads
+ * are waiting: it only reads the number of waiters, so putting creatures
+ * back does not write to a memory location shared by every thread.  The
+ * version is only changed, and the lock only taken, when there are
+ * waiters.  This class is thread-safe.
+ *
+ * @author Derk Norton
+ */
+final class Signal {
+
+    Signal() {
+        this.numberOfSpins = DEFAULT_NUMBER_OF_SPINS;
+    }
+
+
+    int getNumberOfSpins() {
+        return numberOfSpins;
+    }
+
+
+    void setNumberOfSpins(int numberOfSpins) {
+        this.numberOfSpins = Math.max(0, numberOfSpins);
+    }
+
+
+    <T> T await(Supplier<T> attempt, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+        // spin for a while first
+        for (int i = 0; i < numberOfSpins; i++) {
+            T result = attempt.get();
+            if (result != null) return result;
+            if (Thread.interrupted()) throw new InterruptedException();
+            Thread.yield();
+        }
+
+        // then park until something is put back or the time runs out, counting
+        // this thread as a waiter before its next attempt so that a put missed by
+        // the attempt is followed by a signal that sees the waiter
+        waiters.incrementAndGet();
+        try {
+            while (true) {
+                // read the version before trying so a signal sent after the attempt is not lost
+                long seen = version.get();
+                T result = attempt.get();
+                if (result != null) return result;
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0L) return null;
+                lock.lockInterruptibly();
+                try {
+                    if (version.get() == seen) {
+                        changed.awaitNanos(remaining);
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+        } finally {
+            waiters.decrementAndGet();
+        }
+    }
+
+
+    void signal() {
+        // there is nothing to wake when no thread is waiting
+        if (waiters.get() == 0) return;
+        version.incrementAndGet();
+        lock.lock();
+        try {
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    void signalAll() {
+        // there is nothing to wake when no thread is waiting
+        if (waiters.get() == 0) return;
+        version.incrementAndGet();
+        lock.lock();
+        try {
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    private volatile int numberOfSpins;
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicInteger waiters = new AtomicInteger();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    static private final int DEFAULT_NUMBER_OF_SPINS = 64;
+
+}
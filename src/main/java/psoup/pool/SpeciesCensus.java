@@ -0,0 +1,75 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package psoup.pool;
+
+import java.util.concurrent.ConcurrentHashMap;
+import psoup.util.SharedCounter;
+
+
+/**
+ * This class counts the distinct species held by a group of gene pools,
+ * such as the islands of an island pool.  Each pool reports the species
+ * that it gains and loses, and the census keeps track of how many of the
+ * pools hold each species.  A species is only counted once no matter how
+ * many pools hold it, and the count has true low and high water marks.
+ * The census is only updated when a species appears in or disappears from
+ * a pool, not for every creature.  This class is thread-safe.
+ *
+ * @author Derk Norton
+ */
+final class SpeciesCensus {
+
+    void add(long speciesId) {
+        // the counter is changed while the entry is locked so changes to one species stay in order
+        holders.compute(speciesId, (id, count) -> {
+            if (count == null) {
+                counter.increment();
+                return 1;
+            }
+            return count + 1;
+        });
+    }
+
+
+    void remove(long speciesId) {
+        holders.computeIfPresent(speciesId, (id, count) -> {
+            if (count == 1) {
+                counter.decrement();
+                return null;
+            }
+            return count - 1;
+        });
+    }
+
+
+    long getCurrentNumberOfSpecies() {
+        return counter.getCurrentValue();
+    }
+
+
+    long getLowestNumberOfSpecies() {
+        return counter.getLowWaterMark();
+    }
+
+
+    long getHighestNumberOfSpecies() {
+        return counter.getHighWaterMark();
+    }
+
+
+    void resetWaterMarks() {
+        counter.resetWaterMarks();
+    }
+
+
+    private final ConcurrentHashMap<Long, Integer> holders = new ConcurrentHashMap<>();  // pools by species id
+    private final SharedCounter counter = new SharedCounter();
+
+}
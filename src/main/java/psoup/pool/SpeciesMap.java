@@ -0,0 +1,211 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package psoup.pool;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+import java.util.*;
+import psoup.*;
+
+
+/**
+ * This class implements a map from species ids to species that is keyed
+ * by primitive longs.  The species are stored densely in insertion order
+ * (with the last species moved into the gap left by a removed species)
+ * and are located through an open addressing table that uses linear
+ * probing.  This allows a species to be looked up without boxing its id
+ * and allows a random species to be picked in constant time.  The map is
+ * serialized as a normal JSON object.  This class is not thread-safe.
+ *
+ * @author Derk Norton
+ */
+public final class SpeciesMap {
+
+    public SpeciesMap() {
+        this.ids = new long[INITIAL_CAPACITY];
+        this.species = new Species[INITIAL_CAPACITY];
+        this.slots = new int[2 * INITIAL_CAPACITY];
+        this.mask = slots.length - 1;
+        this.size = 0;
+    }
+
+
+    @JsonCreator
+    public SpeciesMap(Map<Long, Species> map) {
+        this();
+        for (Map.Entry<Long, Species> entry : map.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+
+    @JsonValue
+    public Map<Long, Species> toMap() {
+        Map<Long, Species> map = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            map.put(ids[i], species[i]);
+        }
+        return map;
+    }
+
+
+    public int size() {
+        return size;
+    }
+
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+
+    public long idAt(int index) {
+        return ids[index];
+    }
+
+
+    public Species speciesAt(int index) {
+        return species[index];
+    }
+
+
+    public int indexOf(long speciesId) {
+        int slot = findSlot(speciesId);
+        if (slot < 0) return -1;
+        return slots[slot] - 1;
+    }
+
+
+    public Species get(long speciesId) {
+        int slot = findSlot(speciesId);
+        if (slot < 0) return null;
+        return species[slots[slot] - 1];
+    }
+
+
+    public Species put(long speciesId, Species value) {
+        // replace the existing species if there is one
+        int slot = findSlot(speciesId);
+        if (slot >= 0) {
+            int index = slots[slot] - 1;
+            Species previous = species[index];
+            species[index] = value;
+            return previous;
+        }
+
+        // make room for the new species
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, 2 * ids.length);
+            species = Arrays.copyOf(species, 2 * species.length);
+        }
+        if (2 * (size + 1) > slots.length) {
+            resizeSlots(2 * slots.length);
+        }
+
+        // append the new species and index it
+        ids[size] = speciesId;
+        species[size] = value;
+        size++;
+        slot = homeSlot(speciesId);
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = size;
+        return null;
+    }
+
+
+    public Species remove(long speciesId) {
+        int slot = findSlot(speciesId);
+        if (slot < 0) return null;
+        int index = slots[slot] - 1;
+        Species removed = species[index];
+        deleteSlot(slot);
+
+        // move the last species into the gap
+        int last = size - 1;
+        if (index != last) {
+            long lastId = ids[last];
+            ids[index] = lastId;
+            species[index] = species[last];
+            slot = homeSlot(lastId);
+            while (slots[slot] != last + 1) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = index + 1;
+        }
+        species[last] = null;
+        size = last;
+        return removed;
+    }
+
+
+    public void clear() {
+        Arrays.fill(species, 0, size, null);
+        Arrays.fill(slots, 0);
+        size = 0;
+    }
+
+
+    private int findSlot(long speciesId) {
+        int slot = homeSlot(speciesId);
+        int entry;
+        while ((entry = slots[slot]) != 0) {
+            if (ids[entry - 1] == speciesId) return slot;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+
+    private void deleteSlot(int hole) {
+        // shift back any entries that were displaced past the hole
+        int slot = hole;
+        while (true) {
+            slot = (slot + 1) & mask;
+            int entry = slots[slot];
+            if (entry == 0) break;
+            int home = homeSlot(ids[entry - 1]);
+            if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                slots[hole] = entry;
+                hole = slot;
+            }
+        }
+        slots[hole] = 0;
+    }
+
+
+    private void resizeSlots(int capacity) {
+        slots = new int[capacity];
+        mask = capacity - 1;
+        for (int i = 0; i < size; i++) {
+            int slot = homeSlot(ids[i]);
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = i + 1;
+        }
+    }
+
+
+    private int homeSlot(long speciesId) {
+        return (int) ((speciesId * 0x9e3779b97f4a7c15L) >>> 32) & mask;
+    }
+
+
+    private long[] ids;
+    private Species[] species;
+    private int[] slots;
+    private int mask;
+    private int size;
+
+    static private final int INITIAL_CAPACITY = 1024;
+
+}
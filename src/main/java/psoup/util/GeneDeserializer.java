@@ -0,0 +1,160 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package psoup.util;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import craterdog.primitives.Probability;
+import java.io.IOException;
+import psoup.*;
+import psoup.genes.*;
+
+
+/**
+ * This class reads back a creature that was written by the gene
+ * serializer.  The type of each gene must be the first field of its JSON
+ * object since it decides which gene is created.  Each gene is created as
+ * soon as its object starts and is attached to its parent right away.  The
+ * genes whose objects have not ended yet are kept on a work stack rather
+ * than recursing into them, so creatures of any depth can be read.
+ * Fields that are not part of a gene are skipped.
+ *
+ * @author Derk Norton
+ */
+public final class GeneDeserializer extends JsonDeserializer<Gene> {
+
+    @Override
+    public Gene deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        WorkStack open = new WorkStack();  // the genes whose objects have not ended yet
+        Gene creature = null;
+        String field = null;  // the field of the innermost open gene that is being read
+        JsonToken token = parser.getCurrentToken();
+        while (true) {
+            switch (token) {
+                case START_OBJECT:
+                    Gene gene = createGene(parser, context);
+                    if (open.empty()) {
+                        creature = gene;
+                    } else {
+                        attachChild(open.peek(), field, gene);
+                    }
+                    open.push(gene);
+                    break;
+                case FIELD_NAME:
+                    field = parser.getCurrentName();
+                    token = parser.nextToken();
+                    if (isChildField(open.peek(), field, token)) {
+                        // the children are read by the loop itself
+                        continue;
+                    }
+                    readField(open.peek(), field, parser, context);
+                    break;
+                case END_OBJECT:
+                    open.pop();
+                    if (open.empty()) return creature;
+
+                    // the next object in a sequence is another of its children
+                    field = open.peek() instanceof Sequence ? "genes" : null;
+                    break;
+                case START_ARRAY:
+                case END_ARRAY:
+                    break;
+                default:
+                    throw context.mappingException("Unexpected token in a gene: " + token);
+            }
+            token = parser.nextToken();
+        }
+    }
+
+
+    private Gene createGene(JsonParser parser, DeserializationContext context) throws IOException {
+        if (parser.nextToken() != JsonToken.FIELD_NAME || !"geneType".equals(parser.getCurrentName())) {
+            throw context.mappingException("The first field of a gene must be its type.");
+        }
+        String geneType = parser.nextTextValue();
+        if (geneType == null) {
+            throw context.mappingException("The type of a gene must be a string.");
+        }
+        switch (geneType) {
+            case "Branch":
+                return new Branch();
+            case "Chop":
+                return new Chop();
+            case "Copy":
+                return new Copy();
+            case "Get":
+                return new Get();
+            case "Merge":
+                return new Merge();
+            case "Mutate":
+                return new Mutate();
+            case "Put":
+                return new Put();
+            case "Sequence":
+                return new Sequence();
+            default:
+                throw context.mappingException("Unknown gene type: " + geneType);
+        }
+    }
+
+
+    private boolean isChildField(Gene gene, String field, JsonToken token) {
+        if (gene instanceof Branch) {
+            return token == JsonToken.START_OBJECT && ("leftBranch".equals(field) || "rightBranch".equals(field));
+        }
+        return gene instanceof Sequence && token == JsonToken.START_ARRAY && "genes".equals(field);
+    }
+
+
+    private void attachChild(Gene parent, String field, Gene child) {
+        if (parent instanceof Sequence) {
+            ((Sequence) parent).genes.add(child);
+        } else if ("leftBranch".equals(field)) {
+            ((Branch) parent).leftBranch = child;
+        } else {
+            ((Branch) parent).rightBranch = child;
+        }
+    }
+
+
+    private void readField(Gene gene, String field, JsonParser parser, DeserializationContext context) throws IOException {
+        JsonToken token = parser.getCurrentToken();
+        if ("probability".equals(field) && hasProbability(gene)) {
+            // the probability is read by the mapper, like it was written, so any mixins for it apply
+            Probability probability = token == JsonToken.VALUE_NULL ? null : context.readValue(parser, Probability.class);
+            if (gene instanceof Branch) {
+                ((Branch) gene).probability = probability;
+            } else if (gene instanceof Chop) {
+                ((Chop) gene).probability = probability;
+            } else if (gene instanceof Copy) {
+                ((Copy) gene).probability = probability;
+            } else if (gene instanceof Merge) {
+                ((Merge) gene).probability = probability;
+            } else if (gene instanceof Mutate) {
+                ((Mutate) gene).probability = probability;
+            }
+        } else if ("speciesId".equals(field) && gene instanceof Get) {
+            if (!token.isNumeric()) {
+                throw context.mappingException("The species id of a gene must be a number: " + token);
+            }
+            ((Get) gene).speciesId = parser.getLongValue();
+        } else {
+            parser.skipChildren();
+        }
+    }
+
+
+    private boolean hasProbability(Gene gene) {
+        return gene instanceof Branch || gene instanceof Chop || gene instanceof Copy || gene instanceof Merge || gene instanceof Mutate;
+    }
+
+}
@@ -0,0 +1,253 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package psoup.util;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import craterdog.primitives.Probability;
+import java.io.*;
+import psoup.*;
+import psoup.genes.*;
+
+
+/**
+ * This class writes a creature out as nested JSON objects, one per gene,
+ * each starting with the type of the gene.  The genes are written by a
+ * gene visitor that pushes the children of each branch and sequence onto
+ * a work stack rather than recursing into them, so creatures of any depth
+ * can be written.  Since a pretty printer indents each line by the depth
+ * of its nesting, the genes below a certain depth are written compactly
+ * on a single line instead, keeping the size of the output proportional
+ * to the size of the creature.
+ *
+ * @author Derk Norton
+ */
+public final class GeneSerializer extends JsonSerializer<Gene> {
+
+    @Override
+    public void serialize(Gene creature, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        GeneWriter writer = new GeneWriter(generator, provider, generator.getPrettyPrinter() != null);
+        writer.write(creature);
+    }
+
+
+    /**
+     * This class implements the gene visitor that does the writing.  The tag
+     * of each gene on the work stack tells whether the gene is the value of
+     * a branch field, an element of a sequence or a gene that is being left
+     * once its children have been written.
+     */
+    static private final class GeneWriter implements GeneVisitor {
+
+        GeneWriter(JsonGenerator generator, SerializerProvider provider, boolean indented) {
+            this.generator = generator;
+            this.provider = provider;
+            this.indented = indented;
+            this.work = new WorkStack();
+        }
+
+
+        void write(Gene creature) throws IOException {
+            try {
+                work.push(creature);
+                while (!work.empty()) {
+                    Gene gene = work.pop();
+                    if (indented && depth == PRETTY_DEPTH && work.tag() != LEAVING) {
+                        writeCompactly(gene);
+                    } else {
+                        gene.accept(this);
+                    }
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } finally {
+                // don't leave a failed write behind
+                work.clear();
+            }
+        }
+
+
+        @Override
+        public void visit(Branch gene) {
+            try {
+                if (work.tag() == LEAVING) {
+                    end();
+                    return;
+                }
+                start(gene);
+                writeProbability(gene.probability);
+
+                // the left branch is written first so it is pushed last
+                work.push(gene, LEAVING);
+                if (gene.rightBranch != null) work.push(gene.rightBranch, RIGHT_BRANCH);
+                if (gene.leftBranch != null) work.push(gene.leftBranch, LEFT_BRANCH);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+
+        @Override
+        public void visit(Chop gene) {
+            try {
+                start(gene);
+                writeProbability(gene.probability);
+                end();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+
+        @Override
+        public void visit(Copy gene) {
+            try {
+                start(gene);
+                writeProbability(gene.probability);
+                end();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+
+        @Override
+        public void visit(Get gene) {
+            try {
+                start(gene);
+                generator.writeNumberField("speciesId", gene.speciesId);
+                end();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+
+        @Override
+        public void visit(Merge gene) {
+            try {
+                start(gene);
+                writeProbability(gene.probability);
+                end();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+
+        @Override
+        public void visit(Mutate gene) {
+            try {
+                start(gene);
+                writeProbability(gene.probability);
+                end();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+
+        @Override
+        public void visit(Put gene) {
+            try {
+                start(gene);
+                end();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+
+        @Override
+        public void visit(Sequence gene) {
+            try {
+                if (work.tag() == LEAVING) {
+                    generator.writeEndArray();
+                    end();
+                    return;
+                }
+                start(gene);
+                generator.writeFieldName("genes");
+                generator.writeStartArray();
+
+                // the children are written in order so they are pushed in reverse
+                work.push(gene, LEAVING);
+                for (int i = gene.genes.size() - 1; i >= 0; i--) {
+                    work.push(gene.genes.get(i), ELEMENT);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+
+        private void start(Gene gene) throws IOException {
+            writeFieldName();
+            depth++;
+            generator.writeStartObject();
+            generator.writeStringField("geneType", gene.geneType);
+        }
+
+
+        private void end() throws IOException {
+            generator.writeEndObject();
+            depth--;
+        }
+
+
+        private void writeFieldName() throws IOException {
+            // a branch field is named before its gene is written
+            int tag = work.tag();
+            if (tag == LEFT_BRANCH) {
+                generator.writeFieldName("leftBranch");
+            } else if (tag == RIGHT_BRANCH) {
+                generator.writeFieldName("rightBranch");
+            }
+        }
+
+
+        private void writeCompactly(Gene gene) throws IOException {
+            // the gene and its children are written without indentation and then copied
+            writeFieldName();
+            StringWriter buffer = new StringWriter();
+            try (JsonGenerator compact = FACTORY.createGenerator(buffer)) {
+                new GeneWriter(compact, provider, false).write(gene);
+            }
+            generator.writeRawValue(buffer.toString());
+        }
+
+
+        private void writeProbability(Probability probability) throws IOException {
+            // the probability is written by the mapper so that any mixins for it apply
+            if (probability != null) {
+                provider.defaultSerializeField("probability", probability, generator);
+            }
+        }
+
+
+        private final JsonGenerator generator;
+        private final SerializerProvider provider;
+        private final boolean indented;
+        private final WorkStack work;
+        private int depth;  // the number of genes that have been started but not ended
+
+    }
+
+
+    static private final JsonFactory FACTORY = new JsonFactory();
+    static private final int PRETTY_DEPTH = 32;
+    static private final int ELEMENT = 0;
+    static private final int LEFT_BRANCH = 1;
+    static private final int RIGHT_BRANCH = 2;
+    static private final int LEAVING = 3;
+
+}
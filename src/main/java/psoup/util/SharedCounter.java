@@ -10,11 +10,14 @@
 package psoup.util;
 
 import craterdog.smart.SmartObject;
+import java.util.concurrent.atomic.AtomicLong;
 
 
 /**
  * This class implements a shared counter that can track the current
- * value and low and high watermarks for a specific metric.  This
+ * value and low and high watermarks for a specific metric.  The values
+ * are held in atomic longs and the water marks are raised and lowered
+ * using compare-and-set operations so the counter never blocks.  This
  * class is thread-safe.
  *
  * @author Derk Norton
@@ -25,73 +28,80 @@ public final class SharedCounter extends SmartObject<SharedCounter> {
     }
 
 
-    public SharedCounter(int value) {
-        currentValue = value;
+    public SharedCounter(long value) {
+        currentValue.set(value);
         resetWaterMarks();
     }
 
 
-    public synchronized void resetCounter() {
-        currentValue = 0;
+    public void resetCounter() {
+        currentValue.set(0L);
         resetWaterMarks();
     }
 
 
-    public synchronized void resetWaterMarks() {
-        lowWaterMark = currentValue;
-        highWaterMark = currentValue;
+    public void resetWaterMarks() {
+        long value = currentValue.get();
+        lowWaterMark.set(value);
+        highWaterMark.set(value);
     }
 
 
-    public synchronized void increment() {
-        currentValue++;
-        if (highWaterMark < currentValue) {
-            highWaterMark = currentValue;
-        }
+    public void increment() {
+        increment(1L);
+    }
+
+
+    public void decrement() {
+        decrement(1L);
     }
 
 
-    public synchronized void decrement() {
-        currentValue--;
-        if (lowWaterMark > currentValue) {
-            lowWaterMark = currentValue;
+    public void increment(long amount) {
+        long value = currentValue.addAndGet(amount);
+        long high;
+        while ((high = highWaterMark.get()) < value) {
+            if (highWaterMark.compareAndSet(high, value)) break;
         }
     }
 
 
-    public synchronized int getCurrentValue() {
-        return currentValue;
+    public void decrement(long amount) {
+        long value = currentValue.addAndGet(-amount);
+        long low;
+        while ((low = lowWaterMark.get()) > value) {
+            if (lowWaterMark.compareAndSet(low, value)) break;
+        }
     }
 
-    public synchronized void setCurrentValue(int currentValue) {
-        this.currentValue = currentValue;
+
+    public long getCurrentValue() {
+        return currentValue.get();
     }
 
-    public synchronized int getLowWaterMark() {
-        return lowWaterMark;
+    public void setCurrentValue(long currentValue) {
+        this.currentValue.set(currentValue);
     }
 
-    public synchronized void setLowWaterMark(int lowWaterMark) {
-        this.lowWaterMark = lowWaterMark;
+    public long getLowWaterMark() {
+        return lowWaterMark.get();
     }
 
-    public synchronized int getHighWaterMark() {
-        return highWaterMark;
+    public void setLowWaterMark(long lowWaterMark) {
+        this.lowWaterMark.set(lowWaterMark);
     }
 
-    public synchronized void setHighWaterMark(int highWaterMark) {
-        this.highWaterMark = highWaterMark;
+    public long getHighWaterMark() {
+        return highWaterMark.get();
     }
 
-    private SharedCounter(int currentValue, int lowWaterMark, int highWaterMark) {
-        this.currentValue = currentValue;
-        this.lowWaterMark = lowWaterMark;
-        this.highWaterMark = highWaterMark;
+    public void setHighWaterMark(long highWaterMark) {
+        this.highWaterMark.set(highWaterMark);
     }
 
 
-    public int currentValue;
-    public int lowWaterMark;
-    public int highWaterMark;
+    private final AtomicLong currentValue = new AtomicLong();
+    private final AtomicLong lowWaterMark = new AtomicLong();
+    private final AtomicLong highWaterMark = new AtomicLong();
 
 }
@@ -0,0 +1,190 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package psoup.util;
+
+import psoup.*;
+import psoup.genes.*;
+
+
+/**
+ * This class implements the gene visitor pattern and calculates a hash of
+ * the genetic structure of a creature.  The hash covers the type of each
+ * gene and the position of each gene within its branch or sequence.
+ * Probability values and the species targeted by get genes are ignored so
+ * that creatures with the same structure belong to the same species.  The
+ * children of a gene are hashed using their own (cached) species ids so
+ * only the genes that have changed since the last hash are revisited.  The
+ * number of genes in the creature is counted in the same way.  A gene
+ * whose children have not been hashed yet is not hashed by recursing into
+ * them.  Instead the gene and its unhashed children are pushed onto a work
+ * stack and handed back one at a time, deepest first, so that each of
+ * them can be hashed once the genes below it have been.
+ *
+ * @author Derk Norton
+ */
+public final class SpeciesHasher implements GeneVisitor {
+
+    public SpeciesHasher() {
+        this.hash = SEED;
+        this.numberOfGenes = 0;
+    }
+
+
+    @Override
+    public void visit(Branch gene) {
+        mix(BRANCH_TAG);
+        numberOfGenes = 1;
+        mixChild(gene.leftBranch);
+        mixChild(gene.rightBranch);
+    }
+
+
+    @Override
+    public void visit(Chop gene) {
+        mix(CHOP_TAG);
+    }
+
+
+    @Override
+    public void visit(Copy gene) {
+        mix(COPY_TAG);
+    }
+
+
+    @Override
+    public void visit(Get gene) {
+        mix(GET_TAG);
+    }
+
+
+    @Override
+    public void visit(Merge gene) {
+        mix(MERGE_TAG);
+    }
+
+
+    @Override
+    public void visit(Mutate gene) {
+        mix(MUTATE_TAG);
+    }
+
+
+    @Override
+    public void visit(Put gene) {
+        mix(PUT_TAG);
+    }
+
+
+    @Override
+    public void visit(Sequence gene) {
+        mix(SEQUENCE_TAG);
+        mix(gene.genes.size());
+        numberOfGenes = 1;
+        for (int i = 0; i < gene.genes.size(); i++) {
+            mixChild(gene.genes.get(i));
+        }
+    }
+
+
+    public long hashCreature(Gene creature) {
+        // apply the visitor pattern
+        hash = SEED;
+        numberOfGenes = 1;
+        unhashedChildren = false;
+        this.creature = creature;
+        creature.accept(this);
+
+        // the creature must wait until its unhashed children have been hashed
+        if (unhashedChildren) {
+            return 0L;
+        }
+
+        // a species id of zero is reserved to mean any species
+        long result = finish(hash);
+        if (result == 0L) {
+            result = SEED;
+        }
+        return result;
+    }
+
+
+    public Gene nextGene() {
+        // the genes that were put off are handed back deepest first
+        if (work == null || work.empty()) return null;
+        return work.pop();
+    }
+
+
+    public int getNumberOfGenes() {
+        return numberOfGenes;
+    }
+
+
+    private void mixChild(Gene child) {
+        if (child != null && !child.hasSpeciesId()) {
+            // put off the creature until the child has been hashed
+            if (work == null) {
+                work = new WorkStack();
+            }
+            if (!unhashedChildren) {
+                unhashedChildren = true;
+                work.push(creature);
+            }
+            work.push(child);
+        } else if (child != null) {
+            mix(child.getSpeciesId());
+            numberOfGenes += child.getNumberOfGenes();
+        } else {
+            mix(ABSENT_TAG);
+        }
+    }
+
+
+    private void mix(long value) {
+        long k = value * C1;
+        k = Long.rotateLeft(k, 31);
+        k *= C2;
+        hash ^= k;
+        hash = Long.rotateLeft(hash, 27);
+        hash = hash * 5 + 0x52dce729L;
+    }
+
+
+    static private long finish(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+
+    private long hash;
+    private int numberOfGenes;
+    private Gene creature;  // the gene being hashed
+    private boolean unhashedChildren;
+    private WorkStack work;  // the genes that have been put off
+
+    static private final long SEED = 0x50c0be1150c0be11L;
+    static private final long C1 = 0x87c37b91114253d5L;
+    static private final long C2 = 0x4cf5ad432745937fL;
+
+    static private final int ABSENT_TAG = 0x10;
+    static private final int BRANCH_TAG = 0x11;
+    static private final int CHOP_TAG = 0x12;
+    static private final int COPY_TAG = 0x13;
+    static private final int GET_TAG = 0x14;
+    static private final int MERGE_TAG = 0x15;
+    static private final int MUTATE_TAG = 0x16;
+    static private final int PUT_TAG = 0x17;
+    static private final int SEQUENCE_TAG = 0x18;
+
+}
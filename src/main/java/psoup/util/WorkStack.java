@@ -0,0 +1,110 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package psoup.util;
+
+import java.util.Arrays;
+import psoup.*;
+
+
+/**
+ * This class lets a gene visitor walk a creature of any depth without
+ * recursing.  Instead of visiting the children of a branch or sequence
+ * directly, the visitor pushes them onto its work stack and lets the
+ * stack traverse them, which visits each gene in turn until the stack is
+ * empty.  A visitor that is called while the traversal is under way just
+ * adds to the stack, so only the outermost call does the traversing and
+ * the Java stack stays shallow however deep the creature is.  Each entry
+ * carries an integer tag that the visitor can use to tell why the gene
+ * was pushed, for example that it is being left after its children have
+ * been visited.  The tag of the gene that is being visited is available
+ * while it is visited.  The stack grows as needed and keeps its array
+ * between traversals.  This class is not thread-safe.
+ *
+ * @author Derk Norton
+ */
+public final class WorkStack {
+
+    public WorkStack() {
+        this.genes = new Gene[INITIAL_SIZE];
+        this.tags = new int[INITIAL_SIZE];
+    }
+
+
+    public void push(Gene gene) {
+        push(gene, 0);
+    }
+
+
+    public void push(Gene gene, int tag) {
+        if (size == genes.length) {
+            genes = Arrays.copyOf(genes, size * 2);
+            tags = Arrays.copyOf(tags, size * 2);
+        }
+        genes[size] = gene;
+        tags[size++] = tag;
+    }
+
+
+    public Gene pop() {
+        // release the reference so the gene isn't kept alive by the stack
+        Gene gene = genes[--size];
+        genes[size] = null;
+        tag = tags[size];
+        return gene;
+    }
+
+
+    public Gene peek() {
+        return genes[size - 1];
+    }
+
+
+    public int tag() {
+        return tag;
+    }
+
+
+    public boolean empty() {
+        return size == 0;
+    }
+
+
+    public void clear() {
+        while (size > 0) {
+            genes[--size] = null;
+        }
+        tag = 0;
+    }
+
+
+    public void traverse(GeneVisitor visitor) {
+        // a visitor that is already being driven by this stack only adds to it
+        if (traversing) return;
+        traversing = true;
+        try {
+            while (size > 0) {
+                pop().accept(visitor);
+            }
+        } finally {
+            // don't leave a failed traversal behind for the next one
+            clear();
+            traversing = false;
+        }
+    }
+
+
+    private Gene[] genes;
+    private int[] tags;
+    private int size;
+    private int tag;  // the tag of the gene that was popped last
+    private boolean traversing;
+    static private final int INITIAL_SIZE = 16;
+
+}
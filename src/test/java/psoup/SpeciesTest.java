@@ -0,0 +1,42 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package psoup;
+
+import java.util.*;
+import static org.junit.Assert.*;
+import org.junit.Test;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import psoup.genes.*;
+
+
+public class SpeciesTest {
+
+    static XLogger logger = XLoggerFactory.getXLogger(SpeciesTest.class);
+
+
+    @Test
+    public void testSelectMember() {
+        Species species = new Species();
+        Set<Gene> expected = Collections.newSetFromMap(new IdentityHashMap<Gene, Boolean>());
+        for (int i = 0; i < 100; i++) {
+            Gene member = new Chop();
+            species.members.add(member);
+            expected.add(member);
+        }
+        Set<Gene> selected = Collections.newSetFromMap(new IdentityHashMap<Gene, Boolean>());
+        while (!species.isExtinct()) {
+            selected.add(species.selectMember());
+        }
+        assertEquals(expected, selected);
+        assertNull(species.selectMember());
+    }
+
+}
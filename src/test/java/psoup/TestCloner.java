@@ -0,0 +1,80 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package psoup;
+
+import psoup.genes.*;
+
+
+public final class TestCloner implements GeneVisitor {
+
+    static public Gene cloneCreature(Gene creature) {
+        TestCloner cloner = new TestCloner();
+        creature.accept(cloner);
+        return cloner.clone;
+    }
+
+
+    @Override
+    public void visit(Branch gene) {
+        Branch branch = new Branch();
+        if (gene.leftBranch != null) {
+            branch.leftBranch = cloneCreature(gene.leftBranch);
+        }
+        if (gene.rightBranch != null) {
+            branch.rightBranch = cloneCreature(gene.rightBranch);
+        }
+        clone = branch;
+    }
+
+    @Override
+    public void visit(Mutate gene) {
+        clone = new Mutate();
+    }
+
+    @Override
+    public void visit(Merge gene) {
+        clone = new Merge();
+    }
+
+    @Override
+    public void visit(Chop gene) {
+        clone = new Chop();
+    }
+
+    @Override
+    public void visit(Get gene) {
+        Get get = new Get();
+        get.speciesId = gene.speciesId;
+        clone = get;
+    }
+
+    @Override
+    public void visit(Sequence gene) {
+        Sequence sequence = new Sequence();
+        for (Gene item : gene.genes) {
+            sequence.genes.add(cloneCreature(item));
+        }
+        clone = sequence;
+    }
+
+    @Override
+    public void visit(Copy gene) {
+        clone = new Copy();
+    }
+
+    @Override
+    public void visit(Put gene) {
+        clone = new Put();
+    }
+
+
+    private Gene clone;
+
+}
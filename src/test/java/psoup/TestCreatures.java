@@ -0,0 +1,47 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package psoup;
+
+import java.util.function.UnaryOperator;
+import psoup.genes.*;
+
+
+public final class TestCreatures {
+
+    // the depth of a creature far deeper than the java stack could recurse
+    static public final int DEEP = 100000;
+
+
+    static public Gene deepCreature(Gene bottom, UnaryOperator<Gene> wrapper) {
+        // each level of the creature wraps the level below it
+        Gene creature = bottom;
+        for (int i = 0; i < DEEP; i++) {
+            creature = wrapper.apply(creature);
+        }
+        return creature;
+    }
+
+
+    static public Branch leftBranch(Gene gene) {
+        Branch branch = new Branch();
+        branch.leftBranch = gene;
+        return branch;
+    }
+
+
+    static public Sequence sequence(Gene... genes) {
+        Sequence sequence = new Sequence();
+        for (Gene gene : genes) {
+            sequence.genes.add(gene);
+        }
+        return sequence;
+    }
+
+}
@@ -0,0 +1,95 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package psoup.engine;
+
+import craterdog.primitives.Probability;
+import java.util.*;
+import static org.junit.Assert.*;
+import org.junit.Test;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import psoup.*;
+import psoup.genes.*;
+import psoup.pool.*;
+
+
+public class BufferedPoolTest {
+
+    static XLogger logger = XLoggerFactory.getXLogger(BufferedPoolTest.class);
+
+
+    @Test
+    public void testFlush() {
+        Pool pool = new GenePool();
+        pool.initialize(0, new Probability(0.5), 10, new Probability(0.5));
+        BufferedPool buffered = new BufferedPool(pool);
+        buffered.putCreature(new Chop());
+        buffered.putCreature(new Copy());
+        assertEquals(0, pool.getCurrentNumberOfCreatures());
+        buffered.flush();
+        assertEquals(2, pool.getCurrentNumberOfCreatures());
+        assertEquals(2, pool.getCurrentNumberOfSpecies());
+    }
+
+
+    @Test
+    public void testHeldCreaturesReused() {
+        Pool pool = new GenePool();
+        pool.initialize(0, new Probability(0.5), 10, new Probability(0.5));
+        pool.putCreature(new Put());
+        BufferedPool buffered = new BufferedPool(pool);
+        Chop chop = new Chop();
+        buffered.putCreature(chop);
+        assertSame(chop, buffered.getCreature(GenePool.CHOP_ID));
+        assertNull(buffered.getCreature(GenePool.CHOP_ID));
+        assertNotNull(buffered.getCreature(GenePool.PUT_ID));
+        buffered.flush();
+        assertEquals(0, pool.getCurrentNumberOfCreatures());
+    }
+
+
+    @Test
+    public void testManySpeciesHeld() {
+        Pool pool = new GenePool();
+        pool.initialize(0, new Probability(0.5), 10, new Probability(0.5));
+        BufferedPool buffered = new BufferedPool(pool);
+
+        // hold two creatures of each of many species so the index has to grow
+        List<Sequence> creatures = new ArrayList<>();
+        for (int i = 1; i <= 100; i++) {
+            for (int j = 0; j < 2; j++) {
+                Sequence sequence = new Sequence();
+                for (int k = 0; k < i; k++) {
+                    sequence.genes.add(new Put());
+                }
+                creatures.add(sequence);
+                buffered.putCreature(sequence);
+            }
+        }
+
+        // the most recently held creature of a species is taken first
+        for (int i = creatures.size() - 1; i >= 0; i -= 4) {
+            Sequence creature = creatures.get(i);
+            assertSame(creature, buffered.getCreature(creature.getSpeciesId()));
+            assertSame(creatures.get(i - 1), buffered.getCreature(creature.getSpeciesId()));
+        }
+        assertEquals(0, pool.getCurrentNumberOfCreatures());
+        buffered.flush();
+        assertEquals(100, pool.getCurrentNumberOfCreatures());
+        assertEquals(50, pool.getCurrentNumberOfSpecies());
+
+        // nothing is held after a flush so the creature comes from the pool
+        assertNotNull(buffered.getCreature(creatures.get(0).getSpeciesId()));
+        assertEquals(99, pool.getCurrentNumberOfCreatures());
+        buffered.flush();
+        assertEquals(99, pool.getCurrentNumberOfCreatures());
+    }
+
+}
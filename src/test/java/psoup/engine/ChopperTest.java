@@ -11,6 +11,7 @@ package psoup.engine;
 
 import psoup.GeneVisitor;
 import craterdog.primitives.Probability;
+import static org.junit.Assert.assertEquals;
 import org.junit.Test;
 import org.slf4j.ext.XLogger;
 import org.slf4j.ext.XLoggerFactory;
@@ -191,4 +192,33 @@ public class ChopperTest {
     }
 
 
+    @Test
+    public void testChopInvalidatesSpeciesId() {
+        Pool pool = new GenePool();
+        pool.initialize(100, new Probability(0.75), 10, new Probability(0.5));
+        Initializer initializer = new Initializer(pool, new Probability(0.75), 10);
+        for (int i = 0; i < 100; i++) {
+            Gene creature = initializer.generateCreature();
+            creature.getSpeciesId();
+            GeneVisitor chopper = new Chopper(pool, new Probability(0.9));
+            creature.accept(chopper);
+            assertEquals(TestCloner.cloneCreature(creature).getSpeciesId(), creature.getSpeciesId());
+        }
+    }
+
+
+    @Test
+    public void testChopDeepCreature() {
+        Pool pool = new GenePool();
+        pool.initialize(0, new Probability(0.5), 10, new Probability(0.5));
+
+        Gene creature = TestCreatures.deepCreature(new Chop(), TestCreatures::leftBranch);
+        creature.getSpeciesId();
+        Chopper chopper = new Chopper(pool, new Probability(0.5));
+        creature.accept(chopper);
+
+        // every gene is either still part of the creature or back in the pool
+        assertEquals(TestCreatures.DEEP + 1, creature.getNumberOfGenes() + pool.getCurrentNumberOfGenes());
+    }
+
 }
@@ -11,6 +11,7 @@ package psoup.engine;
 
 import psoup.GeneVisitor;
 import craterdog.primitives.Probability;
+import static org.junit.Assert.assertEquals;
 import org.junit.Test;
 import org.slf4j.ext.XLogger;
 import org.slf4j.ext.XLoggerFactory;
@@ -191,4 +192,54 @@ public class CopierTest {
     }
 
 
+    @Test
+    public void testCopyInvalidatesSpeciesId() {
+        Pool pool = new GenePool();
+        pool.initialize(1000, new Probability(0.75), 10, new Probability(0.5));
+        Initializer initializer = new Initializer(pool, new Probability(0.75), 10);
+        for (int i = 0; i < 100; i++) {
+            Gene creature = initializer.generateCreature();
+            Copier copier = new Copier(pool, new Probability(0.9));
+            creature.accept(copier);
+            Gene copy = copier.copy;
+            if (copy != null) {
+                assertEquals(TestCloner.cloneCreature(copy).getSpeciesId(), copy.getSpeciesId());
+                pool.putCreature(copy);
+            }
+        }
+    }
+
+
+    @Test
+    public void testReset() {
+        Pool pool = new GenePool();
+        pool.initialize(0, new Probability(0.5), 10, new Probability(0.5));
+        Copier copier = new Copier(pool);
+        copier.reset(new Probability(1.0));
+        new Put().accept(copier);
+        assertEquals(null, copier.copy);
+        copier.copy = new Put();
+
+        // a reset copier starts without a copy
+        copier.reset(new Probability(0.5));
+        assertEquals(null, copier.copy);
+    }
+
+
+    @Test
+    public void testCopyDeepCreature() {
+        // the items of a sequence are always copied as long as the pool has the genes
+        Pool pool = new GenePool();
+        pool.initialize(0, new Probability(0.5), 10, new Probability(0.5));
+        for (int i = 0; i <= TestCreatures.DEEP; i++) {
+            pool.putCreature(new Sequence());
+        }
+
+        Gene creature = TestCreatures.deepCreature(new Sequence(), gene -> TestCreatures.sequence(gene));
+        Copier copier = new Copier(pool, new Probability(0.5));
+        creature.accept(copier);
+        assertEquals(TestCreatures.DEEP + 1, copier.copy.getNumberOfGenes());
+        assertEquals(creature.getSpeciesId(), copier.copy.getSpeciesId());
+    }
+
 }
@@ -10,11 +10,17 @@
 package psoup.engine;
 
 import craterdog.primitives.Probability;
-import static org.junit.Assert.fail;
+import java.lang.management.*;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.concurrent.*;
+import static org.junit.Assert.*;
+import org.junit.Assume;
 import org.junit.Test;
 import org.slf4j.ext.XLogger;
 import org.slf4j.ext.XLoggerFactory;
 import psoup.*;
+import psoup.genes.*;
 import psoup.pool.*;
 
 
@@ -47,4 +53,234 @@ public class EvolutionEngineTest {
     }
 
 
+    @Test
+    public void testActiveThreads() throws InterruptedException {
+        Pool pool = new GenePool();
+        pool.initialize(1000, new Probability(0.75), 10, new Probability(0.5));
+        Evolver evolver = new EvolutionEngine(pool);
+        assertEquals(0, evolver.getNumberOfActiveThreads());
+        evolver.startEvolving(4);
+        for (int i = 0; i < 100 && evolver.getNumberOfActiveThreads() < 4; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(4, evolver.getNumberOfActiveThreads());
+        evolver.stopEvolving();
+        assertEquals(0, evolver.getNumberOfActiveThreads());
+    }
+
+
+    @Test
+    public void testProvidedExecutor() throws InterruptedException {
+        Pool pool = new GenePool();
+        pool.initialize(1000, new Probability(0.75), 10, new Probability(0.5));
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            Evolver evolver = new EvolutionEngine(pool, executor);
+            evolver.startEvolving(4);
+            Thread.sleep(500);
+            evolver.stopEvolving();
+            assertEquals(0, evolver.getNumberOfActiveThreads());
+            assertFalse("The engine shut down an executor service it did not create.", executor.isShutdown());
+            assertTrue(evolver.getNumberOfGenerations() > 0);
+
+            // the engine can be restarted on the same executor service
+            evolver.startEvolving(2);
+            Thread.sleep(200);
+            evolver.stopEvolving();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+
+    @Test
+    public void testBenchmark() throws Exception {
+        int numberOfThreads = 4 * Runtime.getRuntime().availableProcessors();
+        logger.info("Platform threads: {} generations/second", benchmark(null, numberOfThreads));
+        ExecutorService cached = Executors.newCachedThreadPool();
+        try {
+            logger.info("Cached thread pool: {} generations/second", benchmark(cached, numberOfThreads));
+        } finally {
+            cached.shutdownNow();
+        }
+
+        // virtual threads are only available on newer runtimes
+        ExecutorService virtual = newVirtualThreadExecutor();
+        if (virtual != null) {
+            try {
+                logger.info("Virtual threads: {} generations/second", benchmark(virtual, numberOfThreads));
+                logger.info("Virtual threads (x100): {} generations/second", benchmark(virtual, 100 * numberOfThreads));
+            } finally {
+                virtual.shutdownNow();
+            }
+        } else {
+            logger.info("Virtual threads are not supported by this runtime.");
+        }
+    }
+
+
+    private long benchmark(ExecutorService executor, int numberOfThreads) throws InterruptedException {
+        Pool pool = new GenePool();
+        pool.initialize(10000, new Probability(0.75), 10, new Probability(0.5));
+        Evolver evolver = executor == null ? new EvolutionEngine(pool) : new EvolutionEngine(pool, executor);
+        evolver.startEvolving(numberOfThreads);
+        Thread.sleep(2 * 1000);
+        evolver.stopEvolving();
+        return evolver.getNumberOfGenerations() / 2;
+    }
+
+
+    private ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+
+    @Test
+    public void testEvolveGenerations() throws Exception {
+        Pool pool = new GenePool();
+        pool.initialize(1000, new Probability(0.75), 10, new Probability(0.5));
+        Evolver evolver = new EvolutionEngine(pool);
+        Statistics statistics = evolver.evolve(4, 5000).get(30, TimeUnit.SECONDS);
+        logger.info("The run finished with: {}", statistics);
+        assertEquals(5000L, statistics.numberOfGenerations);
+        assertEquals(5000L, evolver.getNumberOfGenerations());
+        assertFalse(evolver.isEvolving());
+        assertEquals(pool.getCurrentNumberOfCreatures(), statistics.numberOfCreatures);
+    }
+
+
+    @Test
+    public void testEvolveFor() throws Exception {
+        Pool pool = new GenePool();
+        pool.initialize(1000, new Probability(0.75), 10, new Probability(0.5));
+        Evolver evolver = new EvolutionEngine(pool);
+        Statistics statistics = evolver.evolveFor(4, Duration.ofMillis(500)).get(30, TimeUnit.SECONDS);
+        logger.info("The run finished with: {}", statistics);
+        assertFalse(evolver.isEvolving());
+        assertTrue(statistics.elapsedMilliseconds >= 500L);
+        assertTrue(statistics.numberOfGenerations > 0L);
+    }
+
+
+    @Test
+    public void testStoppedEarly() throws Exception {
+        Pool pool = new GenePool();
+        pool.initialize(1000, new Probability(0.75), 10, new Probability(0.5));
+        Evolver evolver = new EvolutionEngine(pool);
+        CompletableFuture<Statistics> future = evolver.evolve(4, Long.MAX_VALUE / 2);
+        assertTrue(evolver.evolve(4, 10).isCompletedExceptionally());
+        Thread.sleep(200);
+        evolver.stopEvolving();
+        assertTrue(future.isDone());
+        assertEquals(evolver.getNumberOfGenerations(), future.get().numberOfGenerations);
+    }
+
+
+    @Test
+    public void testPauseAndResume() throws InterruptedException {
+        Pool pool = new GenePool();
+        pool.initialize(1000, new Probability(0.75), 10, new Probability(0.5));
+        EvolutionEngine evolver = new EvolutionEngine(pool);
+        evolver.startEvolving(4);
+        Thread.sleep(200);
+
+        // nothing changes while the engine is paused
+        long start = System.nanoTime();
+        evolver.pause();
+        logger.info("The engine paused in {} microseconds.", (System.nanoTime() - start) / 1000);
+        assertTrue(evolver.isPaused());
+        long numberOfGenerations = evolver.getNumberOfGenerations();
+        long numberOfCreatures = pool.getCurrentNumberOfCreatures();
+        long numberOfGenes = pool.getCurrentNumberOfGenes();
+        Thread.sleep(200);
+        assertEquals(numberOfGenerations, evolver.getNumberOfGenerations());
+        assertEquals(numberOfCreatures, pool.getCurrentNumberOfCreatures());
+        assertEquals(numberOfGenes, pool.getCurrentNumberOfGenes());
+        assertEquals(4, evolver.getNumberOfActiveThreads());
+
+        // the same processors carry on where they left off
+        evolver.resume();
+        assertFalse(evolver.isPaused());
+        Thread.sleep(200);
+        assertTrue(evolver.getNumberOfGenerations() > numberOfGenerations);
+        evolver.stopEvolving();
+        assertFalse(evolver.isPaused());
+    }
+
+
+    @Test
+    public void testPauseEmptyPool() throws InterruptedException {
+        // the processors waiting for a creature do not hold up the pause
+        Pool pool = new GenePool();
+        pool.initialize(0, new Probability(0.75), 10, new Probability(0.5));
+        EvolutionEngine evolver = new EvolutionEngine(pool);
+        evolver.startEvolving(4);
+        Thread.sleep(100);
+        long start = System.nanoTime();
+        evolver.pause();
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue("The engine took " + elapsed + " milliseconds to pause.", elapsed < 500L);
+        assertEquals(4, evolver.getNumberOfActiveThreads());
+
+        // the interrupted processors carry on after the pause
+        evolver.resume();
+        pool.putCreature(new Chop());
+        Thread.sleep(100);
+        assertTrue(evolver.getNumberOfGenerations() > 0L);
+        evolver.stopEvolving();
+    }
+
+
+    @Test
+    public void testAutomaticThreadCount() throws Exception {
+        GenePool pool = new GenePool();
+        pool.initialize(1000, new Probability(0.75), 10, new Probability(0.5));
+        EvolutionEngine evolver = new EvolutionEngine(pool);
+        evolver.startEvolving(EvolutionEngine.AUTOMATIC);
+
+        // let the engine retune the number of processors a few times
+        Thread.sleep(2000);
+        int numberOfThreads = evolver.getNumberOfActiveThreads();
+        logger.info("The engine settled on {} threads.", numberOfThreads);
+        assertTrue(numberOfThreads >= 1);
+        assertTrue(numberOfThreads <= 4 * Runtime.getRuntime().availableProcessors());
+        assertTrue(evolver.getNumberOfGenerations() > 0L);
+        evolver.stopEvolving();
+        assertEquals(0, evolver.getNumberOfActiveThreads());
+    }
+
+
+    @Test
+    public void testContentionMonitoringRestored() throws InterruptedException {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threadBean.isThreadContentionMonitoringSupported());
+        boolean previous = threadBean.isThreadContentionMonitoringEnabled();
+        threadBean.setThreadContentionMonitoringEnabled(false);
+        try {
+            GenePool pool = new GenePool();
+            pool.initialize(1000, new Probability(0.75), 10, new Probability(0.5));
+
+            // only an automatic thread count needs the blocked times
+            EvolutionEngine evolver = new EvolutionEngine(pool);
+            evolver.startEvolving(2);
+            Thread.sleep(100);
+            assertFalse(threadBean.isThreadContentionMonitoringEnabled());
+            evolver.stopEvolving();
+
+            // the setting is put back once the engine stops
+            evolver.startEvolving(EvolutionEngine.AUTOMATIC);
+            Thread.sleep(100);
+            assertTrue(threadBean.isThreadContentionMonitoringEnabled());
+            evolver.stopEvolving();
+            assertFalse(threadBean.isThreadContentionMonitoringEnabled());
+        } finally {
+            threadBean.setThreadContentionMonitoringEnabled(previous);
+        }
+    }
+
 }
@@ -0,0 +1,158 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package psoup.engine;
+
+import craterdog.primitives.Probability;
+import java.time.Duration;
+import java.util.concurrent.*;
+import static org.junit.Assert.*;
+import org.junit.Test;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import psoup.*;
+import psoup.genes.*;
+import psoup.pool.*;
+
+
+public class ForkJoinEngineTest {
+
+    static XLogger logger = XLoggerFactory.getXLogger(ForkJoinEngineTest.class);
+
+    @Test
+    public void testSimpleEvolution() {
+        Pool pool = new GenePool();
+        pool.initialize(1000, new Probability(0.75), 10, new Probability(0.5));
+        Evolver evolver = new ForkJoinEngine(pool);
+        if (evolver.isEvolving()) {
+            fail("ForkJoinEngine should not be evolving before startEvolving() call.");
+        }
+        evolver.startEvolving(4);
+        if (!evolver.isEvolving()) {
+            fail("ForkJoinEngine should be evolving after startEvolving() call.");
+        }
+        try {
+            Thread.sleep(1000);
+        } catch (InterruptedException e) {
+        }
+        evolver.stopEvolving();
+        if (evolver.isEvolving()) {
+            fail("ForkJoinEngine should not be evolving after stopEvolving() call.");
+        }
+        logger.info("The pool evolved for {} generations.", evolver.getNumberOfGenerations());
+        if (evolver.getNumberOfGenerations() == 0) {
+            fail("ForkJoinEngine did not process any generations.");
+        }
+        if (pool.getCurrentNumberOfCreatures() == 0) {
+            fail("ForkJoinEngine did not return the creatures to the pool.");
+        }
+    }
+
+
+    @Test
+    public void testEmptyPool() {
+        // the workers must not hang on to an empty pool when stopped
+        Pool pool = new GenePool();
+        pool.initialize(0, new Probability(0.75), 10, new Probability(0.5));
+        Evolver evolver = new ForkJoinEngine(pool);
+        evolver.startEvolving(2);
+        try {
+            Thread.sleep(200);
+        } catch (InterruptedException e) {
+        }
+        long start = System.currentTimeMillis();
+        evolver.stopEvolving();
+        long elapsed = System.currentTimeMillis() - start;
+        if (elapsed > 2000) {
+            fail("ForkJoinEngine took " + elapsed + " milliseconds to stop.");
+        }
+    }
+
+
+    @Test
+    public void testBenchmark() {
+        int numberOfThreads = Runtime.getRuntime().availableProcessors();
+        logger.info("EvolutionEngine: {} generations/second", benchmark(new EvolutionEngine(newPool()), numberOfThreads));
+        logger.info("ForkJoinEngine: {} generations/second", benchmark(new ForkJoinEngine(newPool()), numberOfThreads));
+    }
+
+
+    private Pool newPool() {
+        Pool pool = new GenePool();
+        pool.initialize(10000, new Probability(0.75), 10, new Probability(0.5));
+        return pool;
+    }
+
+
+    private long benchmark(Evolver evolver, int numberOfThreads) {
+        evolver.startEvolving(numberOfThreads);
+        try {
+            Thread.sleep(2 * 1000);
+        } catch (InterruptedException e) {
+        }
+        evolver.stopEvolving();
+        return evolver.getNumberOfGenerations() / 2;
+    }
+
+
+    @Test
+    public void testEvolveGenerations() throws Exception {
+        Pool pool = new GenePool();
+        pool.initialize(1000, new Probability(0.75), 10, new Probability(0.5));
+        Evolver evolver = new ForkJoinEngine(pool);
+        Statistics statistics = evolver.evolve(4, 5000).get(30, TimeUnit.SECONDS);
+        logger.info("The run finished with: {}", statistics);
+        assertEquals(5000L, statistics.numberOfGenerations);
+        assertEquals(5000L, evolver.getNumberOfGenerations());
+        assertFalse(evolver.isEvolving());
+        assertEquals(pool.getCurrentNumberOfCreatures(), statistics.numberOfCreatures);
+    }
+
+
+    @Test
+    public void testScarceCreatures() throws Exception {
+        // most tasks find every remaining generation held by others and must wait rather than spin
+        Pool pool = new GenePool();
+        pool.initialize(0, new Probability(0.75), 10, new Probability(0.5));
+        pool.putCreature(new Chop());
+        pool.putCreature(new Put());
+        Evolver evolver = new ForkJoinEngine(pool);
+        Statistics statistics = evolver.evolve(4, 500).get(30, TimeUnit.SECONDS);
+        assertEquals(500L, statistics.numberOfGenerations);
+        assertFalse(evolver.isEvolving());
+    }
+
+
+    @Test
+    public void testEvolveFor() throws Exception {
+        Pool pool = new GenePool();
+        pool.initialize(1000, new Probability(0.75), 10, new Probability(0.5));
+        Evolver evolver = new ForkJoinEngine(pool);
+        Statistics statistics = evolver.evolveFor(4, Duration.ofMillis(500)).get(30, TimeUnit.SECONDS);
+        logger.info("The run finished with: {}", statistics);
+        assertFalse(evolver.isEvolving());
+        assertTrue(statistics.elapsedMilliseconds >= 500L);
+        assertTrue(statistics.numberOfGenerations > 0L);
+    }
+
+
+    @Test
+    public void testStoppedEarly() throws Exception {
+        Pool pool = new GenePool();
+        pool.initialize(1000, new Probability(0.75), 10, new Probability(0.5));
+        Evolver evolver = new ForkJoinEngine(pool);
+        CompletableFuture<Statistics> future = evolver.evolve(4, Long.MAX_VALUE / 2);
+        assertTrue(evolver.evolve(4, 10).isCompletedExceptionally());
+        Thread.sleep(200);
+        evolver.stopEvolving();
+        assertTrue(future.isDone());
+        assertEquals(evolver.getNumberOfGenerations(), future.get().numberOfGenerations);
+    }
+
+}
@@ -0,0 +1,101 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package psoup.engine;
+
+import craterdog.primitives.Probability;
+import static org.junit.Assert.*;
+import org.junit.Test;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import psoup.*;
+import psoup.genes.*;
+import psoup.pool.*;
+
+
+public class GeneStackTest {
+
+    static XLogger logger = XLoggerFactory.getXLogger(GeneStackTest.class);
+
+
+    @Test
+    public void testPushAndPop() {
+        GeneStack stack = new GeneStack();
+        assertTrue(stack.empty());
+        Gene first = new Chop();
+        Gene second = new Put();
+        assertTrue(stack.push(first));
+        assertTrue(stack.push(second));
+        assertEquals(2, stack.size());
+        assertSame(second, stack.pop());
+        assertSame(first, stack.pop());
+        assertTrue(stack.empty());
+    }
+
+
+    @Test
+    public void testGrowth() {
+        // the stack grows well past its initial size in last in, first out order
+        GeneStack stack = new GeneStack(1000);
+        Gene[] genes = new Gene[1000];
+        for (int i = 0; i < genes.length; i++) {
+            genes[i] = new Get();
+            assertTrue(stack.push(genes[i]));
+        }
+        assertEquals(1000, stack.size());
+        for (int i = genes.length - 1; i >= 0; i--) {
+            assertSame(genes[i], stack.pop());
+        }
+        assertTrue(stack.empty());
+    }
+
+
+    @Test
+    public void testCapacityLimit() {
+        GeneStack stack = new GeneStack(3);
+        assertEquals(3, stack.getCapacity());
+        assertTrue(stack.push(new Chop()));
+        assertTrue(stack.push(new Chop()));
+        assertTrue(stack.push(new Chop()));
+        assertFalse(stack.push(new Chop()));
+        assertEquals(3, stack.size());
+
+        // there is room again once a creature has been popped
+        stack.pop();
+        assertTrue(stack.push(new Chop()));
+    }
+
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBadCapacity() {
+        new GeneStack(0);
+    }
+
+
+    @Test
+    public void testFullStackReturnsCreatures() {
+        // the creatures that don't fit on the stack go back into the pool
+        Pool pool = new GenePool();
+        pool.initialize(0, new Probability(0.5), 10, new Probability(0.5));
+        for (int i = 0; i < 5; i++) {
+            pool.putCreature(new Put());
+        }
+        Sequence sequence = new Sequence();
+        for (int i = 0; i < 5; i++) {
+            Get get = new Get();
+            get.speciesId = GenePool.PUT_ID;
+            sequence.genes.add(get);
+        }
+        Processor processor = new Processor(pool, 2);
+        sequence.accept(processor);
+        processor.reset();
+        assertEquals(5L, pool.getCurrentNumberOfCreatures());
+    }
+
+}
@@ -0,0 +1,112 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package psoup.engine;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+import static org.junit.Assert.*;
+import org.junit.Test;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+
+
+public class GenerationBudgetTest {
+
+    static XLogger logger = XLoggerFactory.getXLogger(GenerationBudgetTest.class);
+
+
+    @Test
+    public void testUnlimited() {
+        GenerationBudget budget = GenerationBudget.unlimited();
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(budget.tryAcquire());
+            budget.complete();
+        }
+        assertFalse(budget.exhausted().isDone());
+    }
+
+
+    @Test
+    public void testGenerations() {
+        GenerationBudget budget = GenerationBudget.ofGenerations(3);
+        assertTrue(budget.tryAcquire());
+        assertTrue(budget.tryAcquire());
+        assertTrue(budget.tryAcquire());
+        assertFalse(budget.tryAcquire());
+
+        // a refunded generation can be acquired again
+        budget.refund();
+        assertTrue(budget.tryAcquire());
+        budget.complete();
+        budget.complete();
+        assertFalse(budget.exhausted().isDone());
+        budget.complete();
+        assertTrue(budget.exhausted().isDone());
+    }
+
+
+    @Test
+    public void testNoGenerations() {
+        GenerationBudget budget = GenerationBudget.ofGenerations(0);
+        assertFalse(budget.tryAcquire());
+        assertTrue(budget.exhausted().isDone());
+    }
+
+
+    @Test
+    public void testDuration() throws InterruptedException {
+        GenerationBudget budget = GenerationBudget.ofDuration(Duration.ofMillis(50));
+        budget.start(System.nanoTime());
+        assertTrue(budget.tryAcquire());
+        assertFalse(budget.exhausted().isDone());
+        Thread.sleep(60);
+        assertFalse(budget.tryAcquire());
+        assertTrue(budget.exhausted().isDone());
+    }
+
+
+    @Test
+    public void testWaitForRefund() throws Exception {
+        // a processor waits for a generation held by another one to be refunded
+        final GenerationBudget budget = GenerationBudget.ofGenerations(1);
+        assertTrue(budget.tryAcquire());
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Boolean> waiting = executor.submit(() -> budget.acquire());
+            Thread.sleep(50);
+            assertFalse(waiting.isDone());
+            budget.refund();
+            assertTrue(waiting.get(5, TimeUnit.SECONDS));
+            budget.complete();
+            assertFalse(budget.acquire());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+
+    @Test
+    public void testWaitForExhaustion() throws Exception {
+        // a waiting processor gives up as soon as the last generation is completed
+        final GenerationBudget budget = GenerationBudget.ofGenerations(1);
+        assertTrue(budget.tryAcquire());
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Boolean> waiting = executor.submit(() -> budget.acquire());
+            Thread.sleep(50);
+            assertFalse(waiting.isDone());
+            budget.complete();
+            assertFalse(waiting.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+}
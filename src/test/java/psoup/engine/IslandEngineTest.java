@@ -0,0 +1,175 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package psoup.engine;
+
+import craterdog.primitives.Probability;
+import java.time.Duration;
+import java.util.concurrent.*;
+import static org.junit.Assert.*;
+import org.junit.Test;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import psoup.*;
+import psoup.pool.*;
+
+
+public class IslandEngineTest {
+
+    static XLogger logger = XLoggerFactory.getXLogger(IslandEngineTest.class);
+
+    @Test
+    public void testSimpleEvolution() {
+        IslandPool pool = new IslandPool(4);
+        pool.initialize(1000, new Probability(0.75), 10, new Probability(0.5));
+        Evolver evolver = new IslandEngine(pool, 100, 5);
+        if (evolver.isEvolving()) {
+            fail("IslandEngine should not be evolving before startEvolving() call.");
+        }
+        evolver.startEvolving(4);
+        if (!evolver.isEvolving()) {
+            fail("IslandEngine should be evolving after startEvolving() call.");
+        }
+        try {
+            Thread.sleep(1000);
+        } catch (InterruptedException e) {
+        }
+        evolver.stopEvolving();
+        if (evolver.isEvolving()) {
+            fail("IslandEngine should not be evolving after stopEvolving() call.");
+        }
+        logger.info("The islands evolved for {} generations.", evolver.getNumberOfGenerations());
+        if (evolver.getNumberOfGenerations() == 0) {
+            fail("IslandEngine did not process any generations.");
+        }
+    }
+
+
+    @Test
+    public void testMigration() {
+        // only the first island starts with any creatures
+        IslandPool pool = new IslandPool(2);
+        pool.getIsland(0).initialize(200, new Probability(0.75), 5, new Probability(0.5));
+        pool.getIsland(1).initialize(0, new Probability(0.75), 5, new Probability(0.5));
+        Evolver evolver = new IslandEngine(pool, 10, 5);
+        evolver.startEvolving(2);
+        try {
+            Thread.sleep(500);
+        } catch (InterruptedException e) {
+        }
+        evolver.stopEvolving();
+        if (pool.getIsland(1).getHighestNumberOfCreatures() == 0) {
+            fail("No creatures migrated to the second island.");
+        }
+    }
+
+
+    @Test
+    public void testEvolveGenerations() throws Exception {
+        IslandPool pool = new IslandPool(4);
+        pool.initialize(1000, new Probability(0.75), 10, new Probability(0.5));
+        Evolver evolver = new IslandEngine(pool, 100, 5);
+        Statistics statistics = evolver.evolve(4, 5000).get(30, TimeUnit.SECONDS);
+        logger.info("The run finished with: {}", statistics);
+        assertEquals(5000L, statistics.numberOfGenerations);
+        assertEquals(5000L, evolver.getNumberOfGenerations());
+        assertFalse(evolver.isEvolving());
+        assertEquals(pool.getCurrentNumberOfCreatures(), statistics.numberOfCreatures);
+    }
+
+
+    @Test
+    public void testEvolveFor() throws Exception {
+        IslandPool pool = new IslandPool(4);
+        pool.initialize(1000, new Probability(0.75), 10, new Probability(0.5));
+        Evolver evolver = new IslandEngine(pool, 100, 5);
+        Statistics statistics = evolver.evolveFor(4, Duration.ofMillis(500)).get(30, TimeUnit.SECONDS);
+        logger.info("The run finished with: {}", statistics);
+        assertFalse(evolver.isEvolving());
+        assertTrue(statistics.elapsedMilliseconds >= 500L);
+        assertTrue(statistics.numberOfGenerations > 0L);
+    }
+
+
+    @Test
+    public void testStoppedEarly() throws Exception {
+        IslandPool pool = new IslandPool(4);
+        pool.initialize(1000, new Probability(0.75), 10, new Probability(0.5));
+        Evolver evolver = new IslandEngine(pool, 100, 5);
+        CompletableFuture<Statistics> future = evolver.evolve(4, Long.MAX_VALUE / 2);
+        assertTrue(evolver.evolve(4, 10).isCompletedExceptionally());
+        Thread.sleep(200);
+        evolver.stopEvolving();
+        assertTrue(future.isDone());
+        assertEquals(evolver.getNumberOfGenerations(), future.get().numberOfGenerations);
+    }
+
+
+    @Test
+    public void testActiveThreads() throws InterruptedException {
+        IslandPool pool = new IslandPool(4);
+        pool.initialize(1000, new Probability(0.75), 10, new Probability(0.5));
+        Evolver evolver = new IslandEngine(pool, 100, 5);
+        assertEquals(0, evolver.getNumberOfActiveThreads());
+        evolver.startEvolving(4);
+        for (int i = 0; i < 100 && evolver.getNumberOfActiveThreads() < 4; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(4, evolver.getNumberOfActiveThreads());
+        evolver.stopEvolving();
+        assertEquals(0, evolver.getNumberOfActiveThreads());
+    }
+
+
+    @Test
+    public void testProvidedExecutor() throws InterruptedException {
+        IslandPool pool = new IslandPool(4);
+        pool.initialize(1000, new Probability(0.75), 10, new Probability(0.5));
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            Evolver evolver = new IslandEngine(pool, 100, 5, executor);
+            evolver.startEvolving(4);
+            Thread.sleep(500);
+            evolver.stopEvolving();
+            assertEquals(0, evolver.getNumberOfActiveThreads());
+            assertFalse("The engine shut down an executor service it did not create.", executor.isShutdown());
+            assertTrue(evolver.getNumberOfGenerations() > 0);
+
+            // the engine can be restarted on the same executor service
+            evolver.startEvolving(0);
+            Thread.sleep(200);
+            evolver.stopEvolving();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+
+    @Test
+    public void testThreadCount() throws Exception {
+        IslandPool pool = new IslandPool(3);
+        pool.initialize(300, new Probability(0.75), 10, new Probability(0.5));
+        Evolver evolver = new IslandEngine(pool, 100, 5);
+
+        // every island must have exactly one thread
+        for (int threadCount : new int[] { -1, 2, 4 }) {
+            try {
+                evolver.startEvolving(threadCount);
+                fail("A thread count of " + threadCount + " was accepted for three islands.");
+            } catch (IllegalArgumentException e) {
+                assertFalse(evolver.isEvolving());
+            }
+        }
+
+        // a thread count of zero gives each island its own thread
+        Statistics statistics = evolver.evolve(0, 1000).get(30, TimeUnit.SECONDS);
+        assertEquals(1000L, statistics.numberOfGenerations);
+    }
+
+}
@@ -11,7 +11,7 @@ package psoup.engine;
 
 import psoup.GeneVisitor;
 import craterdog.primitives.Probability;
-import java.util.*;
+import static org.junit.Assert.*;
 import org.junit.Test;
 import org.slf4j.ext.XLogger;
 import org.slf4j.ext.XLoggerFactory;
@@ -29,7 +29,7 @@ public class MergerTest {
         Pool pool = new GenePool();
         pool.initialize(0, new Probability(0.5), 10, new Probability(0.5));
         Branch branch = new Branch();
-        Stack<Gene> stack = new Stack<>();
+        GeneStack stack = new GeneStack();
         stack.push(new Branch());
         stack.push(new Chop());
         stack.push(new Copy());
@@ -50,7 +50,7 @@ public class MergerTest {
         Branch branch = new Branch();
         Branch left = new Branch();
         branch.leftBranch = left;
-        Stack<Gene> stack = new Stack<>();
+        GeneStack stack = new GeneStack();
         stack.push(new Branch());
         stack.push(new Chop());
         stack.push(new Copy());
@@ -71,7 +71,7 @@ public class MergerTest {
         Branch branch = new Branch();
         Branch right = new Branch();
         branch.rightBranch = right;
-        Stack<Gene> stack = new Stack<>();
+        GeneStack stack = new GeneStack();
         stack.push(new Branch());
         stack.push(new Chop());
         stack.push(new Copy());
@@ -94,7 +94,7 @@ public class MergerTest {
         Branch right = new Branch();
         branch.leftBranch = left;
         branch.rightBranch = right;
-        Stack<Gene> stack = new Stack<>();
+        GeneStack stack = new GeneStack();
         stack.push(new Branch());
         stack.push(new Chop());
         stack.push(new Copy());
@@ -113,7 +113,7 @@ public class MergerTest {
         Pool pool = new GenePool();
         pool.initialize(0, new Probability(0.5), 10, new Probability(0.5));
         Chop chop = new Chop();
-        Stack<Gene> stack = new Stack<>();
+        GeneStack stack = new GeneStack();
         stack.push(new Branch());
         stack.push(new Chop());
         stack.push(new Copy());
@@ -132,7 +132,7 @@ public class MergerTest {
         Pool pool = new GenePool();
         pool.initialize(0, new Probability(0.5), 10, new Probability(0.5));
         Copy copy = new Copy();
-        Stack<Gene> stack = new Stack<>();
+        GeneStack stack = new GeneStack();
         stack.push(new Branch());
         stack.push(new Chop());
         stack.push(new Copy());
@@ -151,7 +151,7 @@ public class MergerTest {
         Pool pool = new GenePool();
         pool.initialize(0, new Probability(0.5), 10, new Probability(0.5));
         Get get = new Get();
-        Stack<Gene> stack = new Stack<>();
+        GeneStack stack = new GeneStack();
         stack.push(new Branch());
         stack.push(new Chop());
         stack.push(new Copy());
@@ -171,7 +171,7 @@ public class MergerTest {
         pool.initialize(0, new Probability(0.5), 10, new Probability(0.5));
         Get get = new Get();
         get.speciesId = pool.pickRandomSpecies();
-        Stack<Gene> stack = new Stack<>();
+        GeneStack stack = new GeneStack();
         stack.push(new Branch());
         stack.push(new Chop());
         stack.push(new Copy());
@@ -190,7 +190,7 @@ public class MergerTest {
         Pool pool = new GenePool();
         pool.initialize(0, new Probability(0.5), 10, new Probability(0.5));
         Merge merge = new Merge();
-        Stack<Gene> stack = new Stack<>();
+        GeneStack stack = new GeneStack();
         stack.push(new Branch());
         stack.push(new Chop());
         stack.push(new Copy());
@@ -209,7 +209,7 @@ public class MergerTest {
         Pool pool = new GenePool();
         pool.initialize(0, new Probability(0.5), 10, new Probability(0.5));
         Mutate mutate = new Mutate();
-        Stack<Gene> stack = new Stack<>();
+        GeneStack stack = new GeneStack();
         stack.push(new Branch());
         stack.push(new Chop());
         stack.push(new Copy());
@@ -228,7 +228,7 @@ public class MergerTest {
         Pool pool = new GenePool();
         pool.initialize(0, new Probability(0.5), 10, new Probability(0.5));
         Put put = new Put();
-        Stack<Gene> stack = new Stack<>();
+        GeneStack stack = new GeneStack();
         stack.push(new Branch());
         stack.push(new Chop());
         stack.push(new Copy());
@@ -247,7 +247,7 @@ public class MergerTest {
         Pool pool = new GenePool();
         pool.initialize(0, new Probability(0.5), 10, new Probability(0.5));
         Sequence sequence = new Sequence();
-        Stack<Gene> stack = new Stack<>();
+        GeneStack stack = new GeneStack();
         stack.push(new Branch());
         stack.push(new Chop());
         stack.push(new Copy());
@@ -268,7 +268,7 @@ public class MergerTest {
         Sequence sequence = new Sequence();
         Gene item = new Branch();
         sequence.genes.add(item);
-        Stack<Gene> stack = new Stack<>();
+        GeneStack stack = new GeneStack();
         stack.push(new Branch());
         stack.push(new Chop());
         stack.push(new Copy());
@@ -303,7 +303,7 @@ public class MergerTest {
         sequence.genes.add(item6);
         sequence.genes.add(item7);
         sequence.genes.add(item8);
-        Stack<Gene> stack = new Stack<>();
+        GeneStack stack = new GeneStack();
         stack.push(new Branch());
         stack.push(new Chop());
         stack.push(new Copy());
@@ -317,4 +317,39 @@ public class MergerTest {
     }
 
 
+    @Test
+    public void testMergeInvalidatesSpeciesId() {
+        Pool pool = new GenePool();
+        pool.initialize(100, new Probability(0.75), 10, new Probability(0.5));
+        Initializer initializer = new Initializer(pool, new Probability(0.75), 10);
+        for (int i = 0; i < 100; i++) {
+            Gene creature = initializer.generateCreature();
+            creature.getSpeciesId();
+            GeneStack stack = new GeneStack();
+            stack.push(initializer.generateCreature());
+            stack.push(initializer.generateCreature());
+            GeneVisitor merger = new Merger(pool, stack);
+            creature.accept(merger);
+            assertEquals(TestCloner.cloneCreature(creature).getSpeciesId(), creature.getSpeciesId());
+        }
+    }
+
+
+    @Test
+    public void testMergeDeepCreature() {
+        Pool pool = new GenePool();
+        pool.initialize(0, new Probability(0.5), 10, new Probability(0.5));
+
+        Gene creature = TestCreatures.deepCreature(new Sequence(), gene -> TestCreatures.sequence(gene));
+        creature.getSpeciesId();
+
+        // the merged creature ends up at the bottom
+        GeneStack stack = new GeneStack();
+        stack.push(new Put());
+        GeneVisitor merger = new Merger(pool, stack);
+        creature.accept(merger);
+        assertTrue(stack.empty());
+        assertEquals(TestCreatures.DEEP + 2, creature.getNumberOfGenes());
+    }
+
 }
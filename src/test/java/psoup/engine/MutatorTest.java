@@ -11,6 +11,7 @@ package psoup.engine;
 
 import psoup.GeneVisitor;
 import craterdog.primitives.Probability;
+import static org.junit.Assert.assertEquals;
 import org.junit.Test;
 import org.slf4j.ext.XLogger;
 import org.slf4j.ext.XLoggerFactory;
@@ -191,4 +192,31 @@ public class MutatorTest {
     }
 
 
+    @Test
+    public void testMutateInvalidatesSpeciesId() {
+        Pool pool = new GenePool();
+        pool.initialize(100, new Probability(0.75), 10, new Probability(1.0));
+        Initializer initializer = new Initializer(pool, new Probability(0.75), 10);
+        for (int i = 0; i < 100; i++) {
+            Gene creature = initializer.generateCreature();
+            creature.getSpeciesId();
+            GeneVisitor mutator = new Mutator(pool, new Probability(0.9));
+            creature.accept(mutator);
+            assertEquals(TestCloner.cloneCreature(creature).getSpeciesId(), creature.getSpeciesId());
+        }
+    }
+
+
+    @Test
+    public void testMutateDeepCreature() {
+        Pool pool = new GenePool();
+        pool.initialize(0, new Probability(0.5), 10, new Probability(0.5));
+
+        Gene creature = TestCreatures.deepCreature(new Chop(), gene -> TestCreatures.sequence(gene, new Mutate()));
+        creature.getSpeciesId();
+        Mutator mutator = new Mutator(pool, new Probability(0.5));
+        creature.accept(mutator);
+        assertEquals(2 * TestCreatures.DEEP + 1, creature.getNumberOfGenes());
+    }
+
 }
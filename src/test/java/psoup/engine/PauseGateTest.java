@@ -0,0 +1,128 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package psoup.engine;
+
+import craterdog.primitives.Probability;
+import java.util.concurrent.*;
+import static org.junit.Assert.*;
+import org.junit.Test;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import psoup.pool.GenePool;
+
+
+public class PauseGateTest {
+
+    static XLogger logger = XLoggerFactory.getXLogger(PauseGateTest.class);
+
+
+    @Test
+    public void testOpenGate() throws InterruptedException {
+        PauseGate gate = new PauseGate();
+        assertTrue(gate.tryEnter());
+        gate.exit();
+        gate.awaitResume();
+        assertFalse(gate.isPaused());
+    }
+
+
+    @Test
+    public void testPauseWaitsForGeneration() throws Exception {
+        final PauseGate gate = new PauseGate();
+        assertTrue(gate.tryEnter());
+
+        // the pause cannot complete while a generation is still running
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> pausing = executor.submit(() -> {
+                gate.pause();
+                return null;
+            });
+            Thread.sleep(50);
+            assertFalse(pausing.isDone());
+            assertFalse("A paused gate let a new generation in.", gate.tryEnter());
+            gate.exit();
+            pausing.get(5, TimeUnit.SECONDS);
+            assertTrue(gate.isPaused());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+
+    @Test
+    public void testResume() throws Exception {
+        final PauseGate gate = new PauseGate();
+        gate.pause();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> waiting = executor.submit(() -> {
+                gate.awaitResume();
+                return null;
+            });
+            Thread.sleep(50);
+            assertFalse(waiting.isDone());
+            gate.resume();
+            waiting.get(5, TimeUnit.SECONDS);
+            assertTrue(gate.tryEnter());
+            gate.exit();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+
+    @Test
+    public void testPauseWakesWaitingThread() throws Exception {
+        final PauseGate gate = new PauseGate();
+        final GenePool pool = new GenePool();
+        pool.initialize(0, new Probability(0.5), 10, new Probability(0.5));
+
+        // a thread waiting on an empty pool does not hold up the pause
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Boolean> waiting = executor.submit(() -> {
+                assertTrue(gate.tryEnter());
+                try {
+                    assertNull(gate.takeCreature(pool, 1, TimeUnit.MINUTES));
+                } finally {
+                    gate.exit();
+                }
+                return Thread.currentThread().isInterrupted();
+            });
+            Thread.sleep(50);
+            long start = System.nanoTime();
+            gate.pause();
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+            assertFalse("The interrupt of the pause was left behind.", waiting.get(5, TimeUnit.SECONDS));
+
+            // a paused gate does not wait at all
+            assertNull(gate.takeCreature(pool, 1, TimeUnit.MINUTES));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+
+    @Test
+    public void testInterruptWhileOpen() throws Exception {
+        final PauseGate gate = new PauseGate();
+        final GenePool pool = new GenePool();
+        pool.initialize(0, new Probability(0.5), 10, new Probability(0.5));
+        Thread.currentThread().interrupt();
+        try {
+            gate.takeCreature(pool, 1, TimeUnit.MINUTES);
+            fail("An interrupt of an open gate was swallowed.");
+        } catch (InterruptedException e) {
+            logger.debug("The waiting thread was interrupted as expected.");
+        }
+    }
+
+}
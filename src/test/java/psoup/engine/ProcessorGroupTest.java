@@ -0,0 +1,77 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package psoup.engine;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.Assert.*;
+import org.junit.Test;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+
+
+public class ProcessorGroupTest {
+
+    static XLogger logger = XLoggerFactory.getXLogger(ProcessorGroupTest.class);
+
+
+    @Test
+    public void testStartAndStop() throws InterruptedException {
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            ProcessorGroup group = new ProcessorGroup(executor);
+            CountDownLatch started = new CountDownLatch(4);
+            for (int i = 0; i < 4; i++) {
+                group.submit(() -> {
+                    started.countDown();
+                    while (!Thread.currentThread().isInterrupted()) {
+                        Thread.yield();
+                    }
+                });
+            }
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            assertEquals(4, group.activeCount());
+            group.stop();
+            assertEquals(0, group.activeCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+
+    @Test
+    public void testQueuedTasks() throws InterruptedException {
+        // only one of the tasks can run at a time so the others are still queued when stopped
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            ProcessorGroup group = new ProcessorGroup(executor);
+            AtomicInteger runs = new AtomicInteger();
+            CountDownLatch started = new CountDownLatch(1);
+            for (int i = 0; i < 3; i++) {
+                group.submit(() -> {
+                    runs.incrementAndGet();
+                    started.countDown();
+                    try {
+                        Thread.sleep(60 * 1000);
+                    } catch (InterruptedException e) {
+                        logger.debug("The task was interrupted as expected.");
+                    }
+                });
+            }
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            group.stop();
+            assertEquals(1, runs.get());
+            assertEquals(0, group.activeCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+}
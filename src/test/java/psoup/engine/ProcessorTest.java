@@ -11,6 +11,8 @@ package psoup.engine;
 
 import psoup.GeneVisitor;
 import craterdog.primitives.Probability;
+import java.lang.management.ManagementFactory;
+import static org.junit.Assert.assertEquals;
 import org.junit.Test;
 import org.slf4j.ext.XLogger;
 import org.slf4j.ext.XLoggerFactory;
@@ -191,4 +193,67 @@ public class ProcessorTest {
     }
 
 
+    @Test
+    public void testAllocationBenchmark() {
+        // the allocation counter is only available on some virtual machines
+        java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if (!(threadBean instanceof com.sun.management.ThreadMXBean)) return;
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threadBean;
+        if (!allocations.isThreadAllocatedMemorySupported()) return;
+        allocations.setThreadAllocatedMemoryEnabled(true);
+
+        Pool pool = new GenePool();
+        pool.initialize(10000, new Probability(0.75), 10, new Probability(0.5));
+        Processor processor = new Processor(pool);
+        long threadId = Thread.currentThread().getId();
+
+        // warm up before measuring
+        runGenerations(pool, processor, 10000);
+        long generations = 100000;
+        long start = System.nanoTime();
+        long before = allocations.getThreadAllocatedBytes(threadId);
+        runGenerations(pool, processor, generations);
+        long bytes = allocations.getThreadAllocatedBytes(threadId) - before;
+        long elapsed = System.nanoTime() - start;
+        logger.info("Processor: {} bytes/generation, {} megabytes/second",
+                bytes / generations, bytes * 1000L / Math.max(elapsed, 1L));
+    }
+
+
+    private void runGenerations(Pool pool, Processor processor, long generations) {
+        for (long i = 0; i < generations; i++) {
+            Gene creature = pool.getCreature(0L);
+            if (creature == null) break;
+            creature.accept(processor);
+            pool.putCreature(creature);
+            processor.reset();
+        }
+    }
+
+
+    @Test
+    public void testProcessDeepCreature() {
+        Pool pool = new GenePool();
+        pool.initialize(0, new Probability(0.5), 10, new Probability(0.5));
+        for (int i = 0; i < 10; i++) {
+            pool.putCreature(new Chop());
+        }
+
+        // alternating branches that always take the left branch and sequences that get a creature
+        Gene creature = TestCreatures.deepCreature(new Put(), gene -> {
+            if (gene instanceof Branch) return TestCreatures.sequence(new Get(), gene);
+            Branch branch = TestCreatures.leftBranch(gene);
+            branch.probability = new Probability(1.0);
+            return branch;
+        });
+        Processor processor = new Processor(pool);
+        creature.accept(processor);
+        processor.reset();
+
+        // every creature that was gotten is back in the pool and the creature itself is unchanged
+        assertEquals(10, pool.getCurrentNumberOfCreatures());
+        assertEquals(10, pool.getCurrentNumberOfGenes());
+        assertEquals(TestCreatures.DEEP + TestCreatures.DEEP / 2 + 1, creature.getNumberOfGenes());
+    }
+
 }
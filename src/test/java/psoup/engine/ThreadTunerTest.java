@@ -0,0 +1,87 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package psoup.engine;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+
+
+public class ThreadTunerTest {
+
+    static XLogger logger = XLoggerFactory.getXLogger(ThreadTunerTest.class);
+
+
+    @Test
+    public void testClimbToPeak() {
+        // the throughput peaks at six threads
+        ThreadTuner tuner = new ThreadTuner(1, 16, 4);
+        for (int i = 0; i < 50; i++) {
+            int count = tuner.getThreadCount();
+            tuner.adjust(throughput(count, 6), 0.0);
+        }
+        assertEquals(6, tuner.getThreadCount());
+    }
+
+
+    @Test
+    public void testNoOscillation() {
+        ThreadTuner tuner = new ThreadTuner(1, 16, 6);
+        int samplesAtPeak = 0;
+        for (int i = 0; i < 100; i++) {
+            int count = tuner.adjust(throughput(tuner.getThreadCount(), 6), 0.0);
+            assertTrue(count >= 5 && count <= 7);
+            if (count == 6) samplesAtPeak++;
+        }
+
+        // only the occasional probe moves the count away from the peak
+        assertTrue("The count was at the peak for " + samplesAtPeak + " samples.", samplesAtPeak >= 80);
+    }
+
+
+    @Test
+    public void testUselessThreadRemoved() {
+        // a flat throughput means the extra thread is undone
+        ThreadTuner tuner = new ThreadTuner(1, 16, 1);
+        assertEquals(2, tuner.adjust(1000.0, 0.0));
+        assertEquals(1, tuner.adjust(1000.0, 0.0));
+        assertEquals(1, tuner.adjust(1000.0, 0.0));
+    }
+
+
+    @Test
+    public void testHighContention() {
+        // contention alone is reason to probe downward
+        ThreadTuner tuner = new ThreadTuner(1, 16, 8);
+        assertEquals(7, tuner.adjust(1000.0, 0.9));
+
+        // the same throughput with fewer threads is kept
+        assertEquals(7, tuner.adjust(1000.0, 0.9));
+    }
+
+
+    @Test
+    public void testLimits() {
+        ThreadTuner tuner = new ThreadTuner(2, 3, 10);
+        assertEquals(3, tuner.getThreadCount());
+        for (int i = 0; i < 50; i++) {
+            int count = tuner.adjust(100.0 * tuner.getThreadCount(), 0.0);
+            assertTrue(count >= 2 && count <= 3);
+        }
+    }
+
+
+    private double throughput(int count, int peak) {
+        // the throughput rises linearly up to the peak and then falls off
+        return count <= peak ? 1000.0 * count : 1000.0 * peak - 500.0 * (count - peak);
+    }
+
+}
@@ -0,0 +1,187 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package psoup.pool;
+
+import craterdog.primitives.Probability;
+import psoup.*;
+import psoup.genes.*;
+import java.util.*;
+import static org.junit.Assert.*;
+import org.junit.Test;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+
+
+public abstract class AbstractPoolTest {
+
+    static XLogger logger = XLoggerFactory.getXLogger(AbstractPoolTest.class);
+
+
+    // the pool implementation that is being tested
+    abstract Pool createPool();
+
+
+    // stores the pool in a file and loads it back
+    abstract Pool storeAndLoad(Pool pool);
+
+
+    @Test
+    public void testAccessors() {
+        Pool pool = createPool();
+        pool.initialize(0, new Probability(0.5), 10, new Probability(0.5));
+        pool.putCreature(new Branch());
+        pool.putCreature(new Chop());
+        pool.putCreature(new Copy());
+        pool.putCreature(new Get());
+        pool.putCreature(new Merge());
+        pool.putCreature(new Mutate());
+        pool.putCreature(new Put());
+        pool.putCreature(new Sequence());
+        assertEquals(8, pool.getCurrentNumberOfSpecies());
+        assertEquals(8, pool.getCurrentNumberOfCreatures());
+
+        long[] ids = { GenePool.BRANCH_ID, GenePool.CHOP_ID, GenePool.COPY_ID, GenePool.GET_ID,
+                GenePool.MERGE_ID, GenePool.MUTATE_ID, GenePool.PUT_ID, GenePool.SEQUENCE_ID };
+        for (long speciesId : ids) {
+            Gene creature = pool.getCreature(speciesId);
+            if (creature == null || creature.getSpeciesId() != speciesId) {
+                fail("The wrong gene was returned from " + name(pool) + " for species: " + speciesId);
+            }
+        }
+        assertEquals(0, pool.getCurrentNumberOfSpecies());
+        assertEquals(0, pool.getCurrentNumberOfCreatures());
+        assertEquals(8, pool.getHighestNumberOfCreatures());
+        assertNull(pool.getCreature(0L));
+    }
+
+
+    @Test
+    public void testInitialize() {
+        Pool pool = createPool();
+        pool.initialize(100, new Probability(0.75), 10, new Probability(0.5));
+        long numberOfCreatures = pool.getCurrentNumberOfCreatures();
+        if (numberOfCreatures != 100) {
+            fail("Number of creatures in " + name(pool) + " (" + numberOfCreatures + ") not equal to initialized number (100).");
+        }
+    }
+
+
+    @Test
+    public void testPickRandomSpecies() {
+        Pool pool = createPool();
+        pool.initialize(0, new Probability(0.5), 10, new Probability(0.5));
+        if (pool.pickRandomSpecies() != 0L) {
+            fail("An empty " + name(pool) + " returned a species.");
+        }
+        pool.putCreature(new Branch());
+        pool.putCreature(new Chop());
+        pool.putCreature(new Copy());
+        pool.putCreature(new Get());
+        pool.getCreature(GenePool.CHOP_ID);
+        pool.getCreature(GenePool.BRANCH_ID);
+
+        Set<Long> picked = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            picked.add(pool.pickRandomSpecies());
+        }
+        if (!picked.equals(new HashSet<>(Arrays.asList(GenePool.COPY_ID, GenePool.GET_ID)))) {
+            fail("The random species picked from the " + name(pool) + " were not the remaining species: " + picked);
+        }
+    }
+
+
+    @Test
+    public void testConcurrentAccess() throws InterruptedException {
+        final Pool pool = createPool();
+        pool.initialize(1000, new Probability(0.75), 5, new Probability(0.5));
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 10000; j++) {
+                        Gene creature = pool.getCreature(0L);
+                        if (creature != null) {
+                            pool.putCreature(creature);
+                        }
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(1000, pool.getCurrentNumberOfCreatures());
+        int numberOfCreatures = 0;
+        while (pool.getCreature(0L) != null) {
+            numberOfCreatures++;
+        }
+        assertEquals(1000, numberOfCreatures);
+        assertEquals(0, pool.getCurrentNumberOfSpecies());
+    }
+
+
+    @Test
+    public void testGeneCounting() {
+        Pool pool = createPool();
+        pool.initialize(100, new Probability(0.75), 5, new Probability(0.5));
+        long numberOfGenes = pool.getCurrentNumberOfGenes();
+
+        // taking creatures apart and putting the pieces back must not change the count
+        Disassembler disassembler = new Disassembler();
+        for (int i = 0; i < 20; i++) {
+            Gene creature = pool.getCreature(0L);
+            pool.putCreatures(disassembler.disassemble(creature));
+        }
+        assertEquals(numberOfGenes, pool.getCurrentNumberOfGenes());
+
+        // the count must match the genes actually held by the pool
+        long counted = 0L;
+        Gene creature;
+        while ((creature = pool.getCreature(0L)) != null) {
+            counted += creature.getNumberOfGenes();
+        }
+        assertEquals(numberOfGenes, counted);
+        assertEquals(0L, pool.getCurrentNumberOfGenes());
+    }
+
+
+    @Test
+    public void testLoadAndStore() {
+        Pool poolA = createPool();
+        poolA.initialize(20, new Probability(0.75), 3, new Probability(0.5));
+        Pool poolB = storeAndLoad(poolA);
+        logger.info("First Pool: {}", poolA);
+        logger.info("Second Pool: {}", poolB);
+        if (!poolA.equals(poolB)) {
+            fail("The " + name(poolA) + " store() and load() methods don't result in equal gene pools.");
+        }
+        assertEquals(poolA.getCurrentNumberOfSpecies(), poolB.getCurrentNumberOfSpecies());
+        assertEquals(poolA.getTemperature().toDouble(), poolB.getTemperature().toDouble(), 0.0d);
+
+        // every creature can be taken back out of the loaded pool
+        int numberOfCreatures = 0;
+        long numberOfGenes = 0L;
+        Gene creature;
+        while ((creature = poolB.getCreature(0L)) != null) {
+            numberOfCreatures++;
+            numberOfGenes += creature.getNumberOfGenes();
+        }
+        assertEquals(20, numberOfCreatures);
+        assertEquals(poolA.getCurrentNumberOfGenes(), numberOfGenes);
+    }
+
+
+    private String name(Pool pool) {
+        return pool.getClass().getSimpleName();
+    }
+
+}
@@ -0,0 +1,183 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package psoup.pool;
+
+import craterdog.primitives.Probability;
+import psoup.*;
+import psoup.genes.*;
+import java.util.*;
+import static org.junit.Assert.*;
+import org.junit.Test;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+
+
+public class ConcurrentGenePoolTest extends AbstractPoolTest {
+
+    static XLogger logger = XLoggerFactory.getXLogger(ConcurrentGenePoolTest.class);
+
+
+    @Override
+    Pool createPool() {
+        return new ConcurrentGenePool();
+    }
+
+
+    @Override
+    Pool storeAndLoad(Pool pool) {
+        ConcurrentGenePool.storeGenePool((ConcurrentGenePool) pool, "target/concurrent-gene-pool.json");
+        return ConcurrentGenePool.loadGenePool("target/concurrent-gene-pool.json");
+    }
+
+
+    @Test
+    public void testRetiredSpecies() {
+        Pool pool = createPool();
+        pool.initialize(0, new Probability(0.5), 10, new Probability(0.5));
+
+        // taking the last member retires the species
+        pool.putCreature(new Chop());
+        assertNotNull(pool.getCreature(GenePool.CHOP_ID));
+        assertNull(pool.getCreature(GenePool.CHOP_ID));
+        assertEquals(0, pool.getCurrentNumberOfSpecies());
+
+        // a retired species is created again by the next put
+        Chop chop = new Chop();
+        pool.putCreature(chop);
+        assertEquals(1, pool.getCurrentNumberOfSpecies());
+        assertSame(chop, pool.getCreature(0L));
+        assertEquals(0, pool.getCurrentNumberOfSpecies());
+    }
+
+
+    @Test
+    public void testConcurrentExtinction() throws InterruptedException {
+        final Pool pool = createPool();
+        pool.initialize(0, new Probability(0.5), 10, new Probability(0.5));
+
+        // each thread holds at most one member of a single species so it keeps going extinct
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    Gene held = new Chop();
+                    for (int j = 0; j < 50000; j++) {
+                        if (held != null) {
+                            pool.putCreature(held);
+                        }
+                        held = pool.getCreature(GenePool.CHOP_ID);
+                    }
+                    if (held != null) {
+                        pool.putCreature(held);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // no member was lost or duplicated by a species being retired while it was being added to
+        assertEquals(threads.length, pool.getCurrentNumberOfCreatures());
+        assertEquals(1, pool.getCurrentNumberOfSpecies());
+        for (int i = 0; i < threads.length; i++) {
+            assertNotNull(pool.getCreature(GenePool.CHOP_ID));
+        }
+        assertNull(pool.getCreature(0L));
+        assertEquals(0, pool.getCurrentNumberOfSpecies());
+    }
+
+
+    @Test
+    public void testStaleSnapshot() {
+        Pool pool = createPool();
+        pool.initialize(0, new Probability(0.5), 10, new Probability(0.5));
+        long[] ids = { GenePool.BRANCH_ID, GenePool.CHOP_ID, GenePool.COPY_ID, GenePool.GET_ID,
+                GenePool.MERGE_ID, GenePool.MUTATE_ID, GenePool.PUT_ID, GenePool.SEQUENCE_ID };
+        pool.putCreature(new Branch());
+        pool.putCreature(new Chop());
+        pool.putCreature(new Copy());
+        pool.putCreature(new Get());
+        pool.putCreature(new Merge());
+        pool.putCreature(new Mutate());
+        pool.putCreature(new Put());
+        pool.putCreature(new Sequence());
+        pool.pickRandomSpecies();
+
+        // too few species have changed to rebuild the snapshot so it only holds extinct species
+        for (long speciesId : ids) {
+            pool.getCreature(speciesId);
+        }
+        Sequence creature = new Sequence();
+        creature.genes.add(new Chop());
+        pool.putCreature(creature);
+        assertSame(creature, pool.getCreature(0L));
+
+        // once enough species have changed only the current species are picked
+        Set<Long> current = new HashSet<>();
+        for (int i = 1; i <= 20; i++) {
+            Sequence sequence = new Sequence();
+            for (int j = 0; j < i; j++) {
+                sequence.genes.add(new Put());
+            }
+            pool.putCreature(sequence);
+            current.add(sequence.getSpeciesId());
+        }
+        for (int i = 0; i < 100; i++) {
+            long speciesId = pool.pickRandomSpecies();
+            if (!current.contains(speciesId)) {
+                fail("The stale snapshot was not rebuilt, species " + speciesId + " was picked.");
+            }
+        }
+    }
+
+
+    @Test
+    public void testBenchmark() throws InterruptedException {
+        for (int numberOfThreads = 1; numberOfThreads <= 8; numberOfThreads *= 2) {
+            Pool[] pools = { new GenePool(), new ShardedGenePool(), new ConcurrentGenePool() };
+            long[] timings = new long[pools.length];
+            for (int i = 0; i < pools.length; i++) {
+                pools[i].initialize(2000, new Probability(0.75), 5, new Probability(0.5));
+                timings[i] = benchmark(pools[i], numberOfThreads);
+            }
+            logger.info("{} threads: GenePool {} ns, ShardedGenePool {} ns, ConcurrentGenePool {} ns per get and put.",
+                    numberOfThreads, timings[0], timings[1], timings[2]);
+        }
+    }
+
+
+    private long benchmark(final Pool pool, int numberOfThreads) throws InterruptedException {
+        final int iterations = 50000;
+        Thread[] threads = new Thread[numberOfThreads];
+        long start = System.nanoTime();
+        for (int i = 0; i < numberOfThreads; i++) {
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < iterations; j++) {
+                        Gene creature = pool.getCreature(0L);
+                        if (creature != null) {
+                            pool.putCreature(creature);
+                        }
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return (System.nanoTime() - start) / ((long) iterations * numberOfThreads);
+    }
+
+}
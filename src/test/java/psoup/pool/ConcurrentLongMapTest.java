@@ -0,0 +1,111 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package psoup.pool;
+
+import java.util.*;
+import static org.junit.Assert.*;
+import org.junit.Test;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+
+
+public class ConcurrentLongMapTest {
+
+    static XLogger logger = XLoggerFactory.getXLogger(ConcurrentLongMapTest.class);
+
+
+    @Test
+    public void testPutGetRemove() {
+        ConcurrentLongMap<String> map = new ConcurrentLongMap<>();
+        assertTrue(map.isEmpty());
+        assertNull(map.putIfAbsent(-5L, "minus five"));
+        assertNull(map.putIfAbsent(Long.MAX_VALUE, "maximum"));
+        assertEquals("minus five", map.putIfAbsent(-5L, "other"));
+        assertEquals("minus five", map.get(-5L));
+        assertEquals("maximum", map.get(Long.MAX_VALUE));
+        assertNull(map.get(5L));
+        assertEquals(2, map.size());
+
+        // only the value that is mapped is removed
+        assertFalse(map.remove(-5L, "other"));
+        assertTrue(map.remove(-5L, "minus five"));
+        assertFalse(map.remove(-5L, "minus five"));
+        assertNull(map.get(-5L));
+        assertEquals(1, map.size());
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(Long.MAX_VALUE));
+    }
+
+
+    @Test
+    public void testGrowth() {
+        ConcurrentLongMap<Long> map = new ConcurrentLongMap<>();
+        for (long key = 1; key <= 10000; key++) {
+            map.putIfAbsent(key * 7919L, key);
+        }
+        assertEquals(10000, map.size());
+        for (long key = 1; key <= 10000; key++) {
+            assertEquals(Long.valueOf(key), map.get(key * 7919L));
+        }
+
+        // every entry is visited exactly once
+        long[] keys = map.keys();
+        Arrays.sort(keys);
+        assertEquals(10000, keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            assertEquals((i + 1) * 7919L, keys[i]);
+        }
+        final long[] sum = { 0L };
+        map.forEach((value, key) -> sum[0] += value);
+        assertEquals(10000L * 10001L / 2L, sum[0]);
+    }
+
+
+    @Test
+    public void testConcurrentUpdates() throws InterruptedException {
+        final ConcurrentLongMap<Long> map = new ConcurrentLongMap<>();
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            final long offset = i * 100000L;
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    // each thread adds its own keys, while the table grows, and removes every other one
+                    for (long key = offset; key < offset + 20000L; key++) {
+                        map.putIfAbsent(key, key);
+                    }
+                    for (long key = offset; key < offset + 20000L; key += 2) {
+                        map.remove(key, map.get(key));
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(threads.length * 10000, map.size());
+        assertEquals(threads.length * 10000, map.keys().length);
+        for (int i = 0; i < threads.length; i++) {
+            long offset = i * 100000L;
+            for (long key = offset; key < offset + 20000L; key++) {
+                Long value = map.get(key);
+                if (key % 2 == 0) {
+                    assertNull(value);
+                } else {
+                    assertEquals(Long.valueOf(key), value);
+                }
+            }
+        }
+    }
+
+}
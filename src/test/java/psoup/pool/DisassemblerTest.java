@@ -0,0 +1,56 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package psoup.pool;
+
+import java.util.*;
+import static org.junit.Assert.*;
+import org.junit.Test;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import psoup.*;
+import psoup.genes.*;
+
+
+public class DisassemblerTest {
+
+    static XLogger logger = XLoggerFactory.getXLogger(DisassemblerTest.class);
+
+
+    @Test
+    public void testDisassemble() {
+        Sequence creature = new Sequence();
+        Branch branch = new Branch();
+        branch.leftBranch = new Chop();
+        branch.rightBranch = new Get();
+        creature.genes.add(branch);
+        creature.genes.add(new Merge());
+        assertEquals(5, creature.getNumberOfGenes());
+
+        List<Gene> atoms = new Disassembler().disassemble(creature);
+        assertEquals(5, atoms.size());
+        Set<Long> speciesIds = new HashSet<>();
+        for (Gene atom : atoms) {
+            assertEquals(1, atom.getNumberOfGenes());
+            speciesIds.add(atom.getSpeciesId());
+        }
+        Set<Long> expected = new HashSet<>(Arrays.asList(GenePool.SEQUENCE_ID, GenePool.BRANCH_ID,
+                GenePool.CHOP_ID, GenePool.GET_ID, GenePool.MERGE_ID));
+        assertEquals(expected, speciesIds);
+    }
+
+
+    @Test
+    public void testDisassembleDeepCreature() {
+        Gene creature = TestCreatures.deepCreature(new Merge(), gene -> TestCreatures.sequence(new Get(), gene));
+        List<Gene> atoms = new Disassembler().disassemble(creature);
+        assertEquals(2 * TestCreatures.DEEP + 1, atoms.size());
+    }
+
+}
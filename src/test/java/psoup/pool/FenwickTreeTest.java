@@ -0,0 +1,55 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package psoup.pool;
+
+import java.util.*;
+import static org.junit.Assert.*;
+import org.junit.Test;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+
+
+public class FenwickTreeTest {
+
+    static XLogger logger = XLoggerFactory.getXLogger(FenwickTreeTest.class);
+
+
+    @Test
+    public void testMatchesLinearScan() {
+        Random random = new Random(7L);
+        FenwickTree tree = new FenwickTree();
+        long[] weights = new long[3000];
+        for (int i = 0; i < 20000; i++) {
+            int index = random.nextInt(weights.length);
+            long delta = Math.max(random.nextInt(5) - 2, -weights[index]);
+            weights[index] += delta;
+            tree.add(index, delta);
+        }
+
+        long total = 0L;
+        for (long weight : weights) {
+            total += weight;
+        }
+        assertEquals(total, tree.total());
+        for (int i = 0; i < 1000; i++) {
+            long target = (long) (random.nextDouble() * total);
+            int expected = 0;
+            long sum = weights[0];
+            while (sum <= target) {
+                sum += weights[++expected];
+            }
+            assertEquals(expected, tree.find(target));
+        }
+        for (int i = 0; i < weights.length; i++) {
+            assertEquals(weights[i], tree.weightAt(i));
+        }
+    }
+
+}
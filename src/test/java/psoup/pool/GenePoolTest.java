@@ -12,6 +12,8 @@ package psoup.pool;
 import craterdog.primitives.Probability;
 import psoup.*;
 import psoup.genes.*;
+import java.util.*;
+import java.util.concurrent.*;
 import static org.junit.Assert.fail;
 import org.junit.Test;
 import org.slf4j.ext.XLogger;
@@ -76,13 +78,230 @@ public class GenePoolTest {
     public void testInitialize() {
         Pool pool = new GenePool();
         pool.initialize(100, new Probability(0.75), 10, new Probability(0.5));
-        int numberOfCreatures = pool.getCurrentNumberOfCreatures();
+        long numberOfCreatures = pool.getCurrentNumberOfCreatures();
         if (numberOfCreatures != 100) {
             fail("Number of creatures in GenePool (" + numberOfCreatures + ") not equal to initialized number (100).");
         }
     }
 
 
+    @Test
+    public void testPickRandomSpecies() {
+        Pool pool = new GenePool();
+        pool.initialize(0, new Probability(0.5), 10, new Probability(0.5));
+        if (pool.pickRandomSpecies() != 0L) {
+            fail("An empty GenePool returned a species.");
+        }
+        pool.putCreature(new Branch());
+        pool.putCreature(new Chop());
+        pool.putCreature(new Copy());
+        pool.putCreature(new Get());
+        pool.getCreature(GenePool.CHOP_ID);
+        pool.getCreature(GenePool.BRANCH_ID);
+
+        Set<Long> picked = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            picked.add(pool.pickRandomSpecies());
+        }
+        if (!picked.equals(new HashSet<>(Arrays.asList(GenePool.COPY_ID, GenePool.GET_ID)))) {
+            fail("The random species picked from the GenePool were not the remaining species: " + picked);
+        }
+    }
+
+
+    @Test
+    public void testBulkAccess() {
+        Pool pool = new GenePool();
+        pool.initialize(0, new Probability(0.5), 10, new Probability(0.5));
+        List<Gene> creatures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            creatures.add(new Chop());
+            creatures.add(new Copy());
+        }
+        pool.putCreatures(creatures);
+        if (pool.getCurrentNumberOfCreatures() != 20 || pool.getCurrentNumberOfSpecies() != 2) {
+            fail("The bulk put did not add all of the creatures to the GenePool.");
+        }
+        List<Gene> chops = pool.getCreatures(GenePool.CHOP_ID, 15);
+        if (chops.size() != 10) {
+            fail("The bulk get returned " + chops.size() + " Chop genes instead of 10.");
+        }
+        List<Gene> rest = pool.getCreatures(0L, 15);
+        if (rest.size() != 10 || pool.getCurrentNumberOfSpecies() != 0) {
+            fail("The bulk get did not empty the GenePool.");
+        }
+    }
+
+
+    @Test
+    public void testAtoms() {
+        Pool pool = new GenePool();
+        pool.initialize(0, new Probability(0.5), 10, new Probability(0.5));
+        double temperature = pool.getTemperature().toDouble();
+        Chop first = new Chop();
+        Chop second = new Chop();
+        pool.putCreature(first);
+        pool.putCreature(second);
+        if (pool.getCurrentNumberOfSpecies() != 1 || pool.getCurrentNumberOfCreatures() != 2) {
+            fail("The Chop genes were not added to a single species.");
+        }
+        if (pool.getTemperature().toDouble() >= temperature) {
+            fail("A new atom species did not lower the temperature.");
+        }
+        if (pool.getCreature(GenePool.CHOP_ID) != second || pool.getCreature(GenePool.CHOP_ID) != first) {
+            fail("The Chop genes were not taken in last in first out order.");
+        }
+        if (pool.getCreature(GenePool.CHOP_ID) != null || pool.getCurrentNumberOfSpecies() != 0) {
+            fail("The Chop species did not go extinct.");
+        }
+        if (Math.abs(pool.getTemperature().toDouble() - temperature) > 1.0e-12) {
+            fail("An extinct atom species did not raise the temperature back.");
+        }
+
+        // the species can be recreated after it goes extinct
+        pool.putCreature(new Chop());
+        if (pool.pickRandomSpecies() != GenePool.CHOP_ID || pool.getCreature(0L) == null) {
+            fail("The Chop species was not recreated.");
+        }
+    }
+
+
+    @Test
+    public void testAtomIndex() {
+        Gene[] atoms = { new Branch(), new Chop(), new Copy(), new Get(), new Merge(), new Mutate(), new Put(), new Sequence() };
+        Set<Integer> indexes = new HashSet<>();
+        for (Gene atom : atoms) {
+            int index = GenePool.atomIndex(atom.getSpeciesId());
+            if (index < 0 || !indexes.add(index)) {
+                fail("An atom was not given its own index: " + atom.getClass().getSimpleName());
+            }
+        }
+        Sequence sequence = new Sequence();
+        sequence.genes.add(new Chop());
+        Branch branch = new Branch();
+        branch.leftBranch = new Put();
+        if (GenePool.atomIndex(sequence.getSpeciesId()) >= 0 || GenePool.atomIndex(branch.getSpeciesId()) >= 0
+                || GenePool.atomIndex(0L) >= 0) {
+            fail("A species that is not an atom was given an atom index.");
+        }
+        Set<Long> ids = new HashSet<>(Arrays.asList(GenePool.BRANCH_ID, GenePool.CHOP_ID, GenePool.COPY_ID,
+                GenePool.GET_ID, GenePool.MERGE_ID, GenePool.MUTATE_ID, GenePool.PUT_ID, GenePool.SEQUENCE_ID));
+        Random random = new Random(42L);
+        for (int i = 0; i < 100000; i++) {
+            long speciesId = random.nextLong();
+            if ((GenePool.atomIndex(speciesId) >= 0) != ids.contains(speciesId)) {
+                fail("A random species id was misclassified: " + speciesId);
+            }
+        }
+    }
+
+
+    @Test
+    public void testSelectionPolicy() {
+        GenePool pool = new GenePool(SelectionPolicy.BY_CREATURE);
+        pool.initialize(0, new Probability(0.5), 10, new Probability(0.5));
+        pool.putCreature(new Chop());
+        for (int i = 0; i < 99; i++) {
+            pool.putCreature(new Copy());
+            pool.putCreature(new Merge());
+        }
+        pool.getCreature(GenePool.CHOP_ID);  // the merge species is moved into the chop species' place
+        int copies = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (pool.pickRandomSpecies() == GenePool.COPY_ID) copies++;
+        }
+        if (copies < 400 || copies > 600) {
+            fail("Picking by creature picked the Copy species " + copies + " times out of 1000.");
+        }
+
+        // most creatures now belong to the merge species
+        pool.getCreatures(GenePool.COPY_ID, 90);
+        int merges = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (pool.pickRandomSpecies() == GenePool.MERGE_ID) merges++;
+        }
+        if (merges < 850) {
+            fail("Picking by creature picked the Merge species only " + merges + " times out of 1000.");
+        }
+
+        pool.setSelectionPolicy(SelectionPolicy.BY_SPECIES);
+        merges = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (pool.pickRandomSpecies() == GenePool.MERGE_ID) merges++;
+        }
+        if (merges < 400 || merges > 600) {
+            fail("Picking by species picked the Merge species " + merges + " times out of 1000.");
+        }
+    }
+
+
+    @Test
+    public void testGeneCounting() {
+        Pool pool = new GenePool();
+        pool.initialize(100, new Probability(0.75), 5, new Probability(0.5));
+        long numberOfGenes = pool.getCurrentNumberOfGenes();
+        int counted = 0;
+        Gene creature;
+        while ((creature = pool.getCreature(0L)) != null) {
+            counted += creature.getNumberOfGenes();
+        }
+        if (counted != numberOfGenes) {
+            fail("The GenePool counted " + numberOfGenes + " genes but held " + counted + " genes.");
+        }
+        if (pool.getCurrentNumberOfGenes() != 0) {
+            fail("An empty GenePool still counts " + pool.getCurrentNumberOfGenes() + " genes.");
+        }
+    }
+
+
+    @Test
+    public void testGeneBudget() {
+        for (EvictionPolicy policy : EvictionPolicy.values()) {
+            GenePool pool = new GenePool();
+            pool.initialize(0, new Probability(0.5), 10, new Probability(0.5));
+            pool.setGeneBudget(100);
+            pool.setEvictionPolicy(policy);
+            for (int i = 0; i < 1000; i++) {
+                // creatures of five genes made up of different atoms
+                Sequence creature = new Sequence();
+                for (int j = 0; j < 4; j++) {
+                    creature.genes.add((i + j) % 2 == 0 ? new Chop() : new Copy());
+                }
+                pool.putCreature(creature);
+                if (pool.getCurrentNumberOfGenes() > 100) {
+                    fail("The " + policy + " policy let the GenePool grow to " + pool.getCurrentNumberOfGenes() + " genes.");
+                }
+            }
+            logger.info("The {} policy left {} creatures in {} species.", policy, pool.getCurrentNumberOfCreatures(), pool.getCurrentNumberOfSpecies());
+        }
+    }
+
+
+    @Test
+    public void testWeightedCoinFlip() {
+        Pool pool = new GenePool();
+        pool.initialize(0, new Probability(0.5), 10, new Probability(0.0));
+        Probability half = new Probability(0.5);
+        for (int i = 0; i < 1000; i++) {
+            if (pool.weightedCoinFlip(half)) {
+                fail("A GenePool with no temperature returned heads.");
+            }
+        }
+        pool.setTemperature(new Probability(1.0));
+        int heads = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (pool.weightedCoinFlip(half)) heads++;
+        }
+        if (heads < 4500 || heads > 5500) {
+            fail("A fair weighted coin flip returned heads " + heads + " times out of 10000.");
+        }
+        if (pool.getTemperature().toDouble() != 1.0d) {
+            fail("The GenePool temperature was not set.");
+        }
+    }
+
+
+    @Test
     public void testLoadandStore() {
         GenePool poolA = new GenePool();
         GenePool poolB;
@@ -97,4 +316,51 @@ public class GenePoolTest {
     }
 
 
+    @Test
+    public void testStoreDeepCreature() {
+        GenePool poolA = new GenePool();
+        poolA.initialize(20, new Probability(0.75), 3, new Probability(0.5));
+        Gene creature = TestCreatures.deepCreature(new Put(), TestCreatures::leftBranch);
+        poolA.putCreature(creature);
+        GenePool.storeGenePool(poolA, "target/deep-gene-pool.json");
+        GenePool poolB = GenePool.loadGenePool("target/deep-gene-pool.json");
+        if (poolB.getCurrentNumberOfCreatures() != 21 || poolB.getCurrentNumberOfGenes() != poolA.getCurrentNumberOfGenes()) {
+            fail("The GenePool holding a deep creature was not loaded back.");
+        }
+        if (poolB.getCreature(creature.getSpeciesId()).getNumberOfGenes() != TestCreatures.DEEP + 1) {
+            fail("The deep creature was not loaded back whole.");
+        }
+    }
+
+
+    @Test
+    public void testTakeCreature() throws Exception {
+        final GenePool pool = new GenePool();
+        pool.initialize(0, new Probability(0.5), 10, new Probability(0.5));
+
+        // an empty pool times out
+        long start = System.nanoTime();
+        if (pool.takeCreature(50, TimeUnit.MILLISECONDS) != null) {
+            fail("An empty GenePool returned a creature.");
+        }
+        if (System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(50)) {
+            fail("The GenePool takeCreature() method returned before its timeout.");
+        }
+
+        // a parked thread is woken by a put
+        pool.setNumberOfSpins(0);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Gene> future = executor.submit(() -> pool.takeCreature(10, TimeUnit.SECONDS));
+            Thread.sleep(50);
+            Gene creature = new Chop();
+            pool.putCreature(creature);
+            if (future.get(5, TimeUnit.SECONDS) != creature) {
+                fail("The waiting thread did not take the creature that was put back.");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
 }
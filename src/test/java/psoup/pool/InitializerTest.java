@@ -16,7 +16,6 @@ import org.slf4j.ext.XLogger;
 import org.slf4j.ext.XLoggerFactory;
 import psoup.*;
 import psoup.genes.*;
-import psoup.util.*;
 
 
 public class InitializerTest {
@@ -28,9 +27,8 @@ public class InitializerTest {
     @Test
     public void testInitializeBranch() {
         Probability probability = new Probability(0.5);
-        SharedCounter counter = new SharedCounter();
         Branch branch = new Branch();
-        GeneVisitor initializer = new Initializer(pool, probability, 10, counter);
+        GeneVisitor initializer = new Initializer(pool, probability, 10);
         branch.accept(initializer);
         logger.info("BRANCH: {}", branch);
     }
@@ -39,9 +37,8 @@ public class InitializerTest {
     @Test
     public void testInitializeChop() {
         Probability probability = new Probability(0.5);
-        SharedCounter counter = new SharedCounter();
         Chop chop = new Chop();
-        GeneVisitor initializer = new Initializer(pool, probability, 10, counter);
+        GeneVisitor initializer = new Initializer(pool, probability, 10);
         chop.accept(initializer);
         logger.info("CHOP: {}", chop);
     }
@@ -50,9 +47,8 @@ public class InitializerTest {
     @Test
     public void testInitializeCopy() {
         Probability probability = new Probability(0.5);
-        SharedCounter counter = new SharedCounter();
         Copy copy = new Copy();
-        GeneVisitor initializer = new Initializer(pool, probability, 10, counter);
+        GeneVisitor initializer = new Initializer(pool, probability, 10);
         copy.accept(initializer);
         logger.info("COPY: {}", copy);
     }
@@ -61,9 +57,8 @@ public class InitializerTest {
     @Test
     public void testInitializeGet() {
         Probability probability = new Probability(0.5);
-        SharedCounter counter = new SharedCounter();
         Get get = new Get();
-        GeneVisitor initializer = new Initializer(pool, probability, 10, counter);
+        GeneVisitor initializer = new Initializer(pool, probability, 10);
         get.accept(initializer);
         logger.info("GET: {}", get);
     }
@@ -72,9 +67,8 @@ public class InitializerTest {
     @Test
     public void testInitializeMerge() {
         Probability probability = new Probability(0.5);
-        SharedCounter counter = new SharedCounter();
         Merge merge = new Merge();
-        GeneVisitor initializer = new Initializer(pool, probability, 10, counter);
+        GeneVisitor initializer = new Initializer(pool, probability, 10);
         merge.accept(initializer);
         logger.info("MERGE: {}", merge);
     }
@@ -83,9 +77,8 @@ public class InitializerTest {
     @Test
     public void testInitializeMutate() {
         Probability probability = new Probability(0.5);
-        SharedCounter counter = new SharedCounter();
         Mutate mutate = new Mutate();
-        GeneVisitor initializer = new Initializer(pool, probability, 10, counter);
+        GeneVisitor initializer = new Initializer(pool, probability, 10);
         mutate.accept(initializer);
         logger.info("MUTATE: {}", mutate);
     }
@@ -94,9 +87,8 @@ public class InitializerTest {
     @Test
     public void testInitializePut() {
         Probability probability = new Probability(0.5);
-        SharedCounter counter = new SharedCounter();
         Put put = new Put();
-        GeneVisitor initializer = new Initializer(pool, probability, 10, counter);
+        GeneVisitor initializer = new Initializer(pool, probability, 10);
         put.accept(initializer);
         logger.info("PUT: {}", put);
     }
@@ -105,9 +97,8 @@ public class InitializerTest {
     @Test
     public void testInitializeSequence() {
         Probability probability = new Probability(0.5);
-        SharedCounter counter = new SharedCounter();
         Sequence sequence = new Sequence();
-        GeneVisitor initializer = new Initializer(pool, probability, 10, counter);
+        GeneVisitor initializer = new Initializer(pool, probability, 10);
         sequence.accept(initializer);
         logger.info("SEQUENCE: {}", sequence);
     }
@@ -116,8 +107,7 @@ public class InitializerTest {
     @Test
     public void testInitializeGenerateGenes() {
         Probability probability = new Probability(0.85);
-        SharedCounter counter = new SharedCounter();
-        Initializer initializer = new Initializer(pool, probability, 10, counter);
+        Initializer initializer = new Initializer(pool, probability, 10);
         for (int i = 0; i < 10; i++) {
             Gene creature = initializer.generateCreature();
             logger.info("CREATURE: {}", creature);
@@ -0,0 +1,118 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package psoup.pool;
+
+import craterdog.primitives.Probability;
+import psoup.*;
+import psoup.genes.*;
+import java.util.*;
+import java.util.concurrent.*;
+import static org.junit.Assert.*;
+import org.junit.Test;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+
+
+public class IslandPoolTest {
+
+    static XLogger logger = XLoggerFactory.getXLogger(IslandPoolTest.class);
+
+
+    @Test
+    public void testInitialize() {
+        IslandPool pool = new IslandPool(4);
+        pool.initialize(102, new Probability(0.75), 10, new Probability(0.5));
+        long numberOfCreatures = pool.getCurrentNumberOfCreatures();
+        if (numberOfCreatures != 102) {
+            fail("Number of creatures in IslandPool (" + numberOfCreatures + ") not equal to initialized number (102).");
+        }
+        for (int i = 0; i < pool.getNumberOfIslands(); i++) {
+            long share = pool.getIsland(i).getCurrentNumberOfCreatures();
+            if (share != 25 && share != 26) {
+                fail("Island " + i + " was initialized with " + share + " creatures.");
+            }
+        }
+    }
+
+
+    @Test
+    public void testAggregateStatistics() {
+        IslandPool pool = new IslandPool(3);
+        pool.initialize(0, new Probability(0.75), 10, new Probability(0.5));
+        pool.getIsland(0).putCreature(new Chop());
+        pool.getIsland(1).putCreature(new Chop());
+        pool.getIsland(2).putCreature(new Copy());
+        assertEquals(3, pool.getCurrentNumberOfCreatures());
+
+        // a species held by several islands is only counted once
+        assertEquals(2, pool.getCurrentNumberOfSpecies());
+        assertEquals(2, pool.getHighestNumberOfSpecies());
+        assertEquals(0.5d, pool.getTemperature().toDouble(), 0.0001d);
+
+        // a species can be found on any island
+        assertNotNull(pool.getCreature(GenePool.COPY_ID));
+        assertNull(pool.getCreature(GenePool.COPY_ID));
+        assertNotNull(pool.getCreature(GenePool.CHOP_ID));
+        assertNotNull(pool.getCreature(GenePool.CHOP_ID));
+        assertNull(pool.getCreature(0L));
+        assertEquals(0, pool.getCurrentNumberOfCreatures());
+        assertEquals(3, pool.getHighestNumberOfCreatures());
+        assertEquals(0, pool.getCurrentNumberOfSpecies());
+        assertEquals(0, pool.getLowestNumberOfSpecies());
+        assertEquals(2, pool.getHighestNumberOfSpecies());
+        assertEquals(0L, pool.pickRandomSpecies());
+    }
+
+
+    @Test
+    public void testTakeCreature() throws Exception {
+        final IslandPool pool = new IslandPool(4);
+        pool.initialize(0, new Probability(0.75), 10, new Probability(0.5));
+        assertNull(pool.takeCreature(30, TimeUnit.MILLISECONDS));
+
+        // a creature put on any island wakes the waiting thread
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Gene> future = executor.submit(() -> pool.takeCreature(10, TimeUnit.SECONDS));
+            Thread.sleep(30);
+            Gene creature = new Copy();
+            pool.getIsland(3).putCreature(creature);
+            assertSame(creature, future.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+
+    @Test
+    public void testLoadAndStore() {
+        IslandPool poolA = new IslandPool(3);
+        poolA.initialize(30, new Probability(0.75), 3, new Probability(0.5));
+        poolA.getIsland(1).putCreatures(poolA.getIsland(0).getCreatures(0L, 5));
+        IslandPool.storeGenePool(poolA, "target/island-pool.json");
+        IslandPool poolB = IslandPool.loadGenePool("target/island-pool.json");
+        assertEquals(poolA, poolB);
+        assertEquals(3, poolB.getNumberOfIslands());
+        assertEquals(poolA.getCurrentNumberOfCreatures(), poolB.getCurrentNumberOfCreatures());
+
+        // the loaded islands are counted by a new census
+        assertEquals(poolA.getCurrentNumberOfSpecies(), poolB.getCurrentNumberOfSpecies());
+        Set<Long> species = new HashSet<>();
+        for (int i = 0; i < poolB.getNumberOfIslands(); i++) {
+            Gene creature;
+            while ((creature = poolB.getIsland(i).getCreature(0L)) != null) {
+                species.add(creature.getSpeciesId());
+            }
+        }
+        assertEquals(poolA.getCurrentNumberOfSpecies(), species.size());
+        assertEquals(0, poolB.getCurrentNumberOfSpecies());
+    }
+
+}
@@ -0,0 +1,91 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package psoup.pool;
+
+import craterdog.primitives.Probability;
+import psoup.*;
+import psoup.genes.*;
+import static org.junit.Assert.*;
+import org.junit.Test;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+
+
+public class ShardedGenePoolTest extends AbstractPoolTest {
+
+    static XLogger logger = XLoggerFactory.getXLogger(ShardedGenePoolTest.class);
+
+
+    @Override
+    Pool createPool() {
+        return new ShardedGenePool(4);
+    }
+
+
+    @Override
+    Pool storeAndLoad(Pool pool) {
+        ShardedGenePool.storeGenePool((ShardedGenePool) pool, "target/sharded-gene-pool.json");
+        return ShardedGenePool.loadGenePool("target/sharded-gene-pool.json");
+    }
+
+
+    @Test
+    public void testPickFromSparseShards() {
+        // most of the shards are empty so the pick must fall back to searching for the one species
+        ShardedGenePool pool = new ShardedGenePool(256);
+        pool.initialize(0, new Probability(0.5), 10, new Probability(0.5));
+        pool.putCreature(new Copy());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(GenePool.COPY_ID, pool.pickRandomSpecies());
+        }
+        pool.getCreature(GenePool.COPY_ID);
+        assertEquals(0L, pool.pickRandomSpecies());
+    }
+
+
+    @Test
+    public void testBenchmark() throws InterruptedException {
+        for (int numberOfThreads = 1; numberOfThreads <= 8; numberOfThreads *= 2) {
+            GenePool genePool = new GenePool();
+            genePool.initialize(2000, new Probability(0.75), 5, new Probability(0.5));
+            ShardedGenePool shardedPool = new ShardedGenePool();
+            shardedPool.initialize(2000, new Probability(0.75), 5, new Probability(0.5));
+            long locked = benchmark(genePool, numberOfThreads);
+            long sharded = benchmark(shardedPool, numberOfThreads);
+            logger.info("{} threads: GenePool {} ns, ShardedGenePool {} ns per get and put.", numberOfThreads, locked, sharded);
+        }
+    }
+
+
+    private long benchmark(final Pool pool, int numberOfThreads) throws InterruptedException {
+        final int iterations = 50000;
+        Thread[] threads = new Thread[numberOfThreads];
+        long start = System.nanoTime();
+        for (int i = 0; i < numberOfThreads; i++) {
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < iterations; j++) {
+                        Gene creature = pool.getCreature(0L);
+                        if (creature != null) {
+                            pool.putCreature(creature);
+                        }
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return (System.nanoTime() - start) / ((long) iterations * numberOfThreads);
+    }
+
+}
@@ -0,0 +1,128 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package psoup.pool;
+
+import java.util.*;
+import java.util.concurrent.*;
+import static org.junit.Assert.*;
+import org.junit.Test;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+
+
+public class SignalTest {
+
+    static XLogger logger = XLoggerFactory.getXLogger(SignalTest.class);
+
+
+    @Test
+    public void testTimeout() throws InterruptedException {
+        Signal signal = new Signal();
+        long start = System.nanoTime();
+        assertNull(signal.await(() -> null, 20, TimeUnit.MILLISECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(20));
+    }
+
+
+    @Test
+    public void testSpinning() throws InterruptedException {
+        // the attempt succeeds while spinning so the thread never parks
+        Signal signal = new Signal();
+        signal.setNumberOfSpins(10);
+        final int[] attempts = new int[1];
+        String result = signal.await(() -> ++attempts[0] == 5 ? "done" : null, 0, TimeUnit.MILLISECONDS);
+        assertEquals("done", result);
+        assertEquals(5, attempts[0]);
+    }
+
+
+    @Test
+    public void testInterrupt() {
+        Signal signal = new Signal();
+        Thread.currentThread().interrupt();
+        try {
+            signal.await(() -> null, 10, TimeUnit.SECONDS);
+            fail("An interrupted thread was not woken.");
+        } catch (InterruptedException e) {
+            logger.debug("The waiting thread was interrupted as expected.");
+        }
+    }
+
+
+    @Test
+    public void testNoLostSignals() throws Exception {
+        // many producers and parked consumers hand items over through a queue
+        final Signal signal = new Signal();
+        signal.setNumberOfSpins(0);
+        final Queue<Integer> queue = new ConcurrentLinkedQueue<>();
+        final int numberOfItems = 10000;
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> consumers = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                consumers.add(executor.submit(() -> {
+                    int taken = 0;
+                    while (signal.await(queue::poll, 500, TimeUnit.MILLISECONDS) != null) {
+                        taken++;
+                    }
+                    return taken;
+                }));
+            }
+            for (int i = 0; i < 2; i++) {
+                executor.submit(() -> {
+                    for (int j = 0; j < numberOfItems / 2; j++) {
+                        queue.add(j);
+                        signal.signal();
+                    }
+                });
+            }
+            int total = 0;
+            for (Future<Integer> consumer : consumers) {
+                total += consumer.get(30, TimeUnit.SECONDS);
+            }
+            assertEquals(numberOfItems, total);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+
+    @Test
+    public void testNoLostWakeups() throws Exception {
+        // a lost wakeup would leave the consumer parked for a full minute
+        final Signal signal = new Signal();
+        signal.setNumberOfSpins(0);
+        final Queue<Integer> queue = new ConcurrentLinkedQueue<>();
+        final int numberOfItems = 2000;
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Integer> consumer = executor.submit(() -> {
+                int taken = 0;
+                while (taken < numberOfItems && signal.await(queue::poll, 60, TimeUnit.SECONDS) != null) {
+                    taken++;
+                }
+                return taken;
+            });
+            executor.submit(() -> {
+                for (int i = 0; i < numberOfItems; i++) {
+                    queue.add(i);
+                    signal.signal();
+                    if (i % 10 == 0) {
+                        Thread.yield();
+                    }
+                }
+            });
+            assertEquals(Integer.valueOf(numberOfItems), consumer.get(30, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+}
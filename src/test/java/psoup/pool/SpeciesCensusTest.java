@@ -0,0 +1,71 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package psoup.pool;
+
+import craterdog.primitives.Probability;
+import psoup.genes.*;
+import static org.junit.Assert.*;
+import org.junit.Test;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+
+
+public class SpeciesCensusTest {
+
+    static XLogger logger = XLoggerFactory.getXLogger(SpeciesCensusTest.class);
+
+
+    @Test
+    public void testDistinctSpecies() {
+        SpeciesCensus census = new SpeciesCensus();
+        census.add(7L);
+        census.add(7L);
+        census.add(-3L);
+        assertEquals(2, census.getCurrentNumberOfSpecies());
+
+        // a species is only gone once every pool has lost it
+        census.remove(7L);
+        assertEquals(2, census.getCurrentNumberOfSpecies());
+        census.remove(7L);
+        census.remove(-3L);
+        assertEquals(0, census.getCurrentNumberOfSpecies());
+        assertEquals(0, census.getLowestNumberOfSpecies());
+        assertEquals(2, census.getHighestNumberOfSpecies());
+        census.resetWaterMarks();
+        assertEquals(0, census.getHighestNumberOfSpecies());
+    }
+
+
+    @Test
+    public void testJoinedPools() {
+        GenePool first = new GenePool();
+        first.initialize(0, new Probability(0.5), 10, new Probability(0.5));
+        first.putCreature(new Chop());
+        GenePool second = new GenePool();
+        second.initialize(0, new Probability(0.5), 10, new Probability(0.5));
+        second.putCreature(new Chop());
+        second.putCreature(new Put());
+
+        // the species already in a pool are counted when it joins
+        SpeciesCensus census = new SpeciesCensus();
+        first.joinCensus(census);
+        second.joinCensus(census);
+        assertEquals(2, census.getCurrentNumberOfSpecies());
+
+        // extinctions and reinitialization are reported to the census
+        first.getCreature(GenePool.CHOP_ID);
+        assertEquals(2, census.getCurrentNumberOfSpecies());
+        second.initialize(0, new Probability(0.5), 10, new Probability(0.5));
+        assertEquals(0, census.getCurrentNumberOfSpecies());
+        first.putCreature(new Copy());
+        assertEquals(1, census.getCurrentNumberOfSpecies());
+    }
+
+}
@@ -0,0 +1,129 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package psoup.pool;
+
+import craterdog.smart.SmartObjectMapper;
+import java.io.IOException;
+import java.util.*;
+import static org.junit.Assert.*;
+import org.junit.Test;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import psoup.*;
+
+
+public class SpeciesMapTest {
+
+    static XLogger logger = XLoggerFactory.getXLogger(SpeciesMapTest.class);
+
+
+    @Test
+    public void testMatchesHashMap() {
+        Random random = new Random(42L);
+        SpeciesMap map = new SpeciesMap();
+        Map<Long, Species> expected = new HashMap<>();
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 100000; i++) {
+            if (ids.isEmpty() || random.nextInt(3) > 0) {
+                long speciesId = random.nextLong();
+                Species species = new Species();
+                assertEquals(expected.put(speciesId, species), map.put(speciesId, species));
+                ids.add(speciesId);
+            } else {
+                long speciesId = ids.remove(random.nextInt(ids.size()));
+                assertEquals(expected.remove(speciesId), map.remove(speciesId));
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (Map.Entry<Long, Species> entry : expected.entrySet()) {
+            assertSame(entry.getValue(), map.get(entry.getKey()));
+        }
+        Set<Long> dense = new HashSet<>();
+        for (int i = 0; i < map.size(); i++) {
+            dense.add(map.idAt(i));
+            assertSame(expected.get(map.idAt(i)), map.speciesAt(i));
+        }
+        assertEquals(expected.keySet(), dense);
+        assertNull(map.get(random.nextLong()));
+    }
+
+
+    @Test
+    public void testSerialization() throws IOException {
+        SmartObjectMapper mapper = new SmartObjectMapper();
+        SpeciesMap map = new SpeciesMap();
+        Map<Long, Species> expected = new LinkedHashMap<>();
+        for (long speciesId = -2L; speciesId <= 2L; speciesId++) {
+            Species species = new Species();
+            map.put(speciesId, species);
+            expected.put(speciesId, species);
+        }
+        String json = mapper.writeValueAsString(map);
+        assertEquals(mapper.writeValueAsString(expected), json);
+
+        SpeciesMap copy = mapper.readValue(json, SpeciesMap.class);
+        assertEquals(map.size(), copy.size());
+        for (long speciesId = -2L; speciesId <= 2L; speciesId++) {
+            assertNotNull(copy.get(speciesId));
+        }
+    }
+
+
+    @Test
+    public void testBenchmark() {
+        // warm up both maps before measuring them
+        for (int i = 0; i < 10; i++) {
+            benchmark(10000);
+        }
+        for (int size : new int[] { 10000, 100000, 1000000 }) {
+            long[] timings = benchmark(size);
+            logger.info("{} species: HashMap {} ns, SpeciesMap {} ns per operation.", size, timings[0], timings[1]);
+        }
+    }
+
+
+    private long[] benchmark(int size) {
+        Species species = new Species();
+        Random random = new Random(size);
+        long[] ids = new long[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = random.nextLong();
+        }
+
+        long start = System.nanoTime();
+        Map<Long, Species> hashMap = new HashMap<>();
+        for (long speciesId : ids) {
+            hashMap.put(speciesId, species);
+        }
+        for (long speciesId : ids) {
+            hashMap.get(speciesId);
+        }
+        for (long speciesId : ids) {
+            hashMap.remove(speciesId);
+        }
+        long boxed = (System.nanoTime() - start) / (3L * size);
+
+        start = System.nanoTime();
+        SpeciesMap speciesMap = new SpeciesMap();
+        for (long speciesId : ids) {
+            speciesMap.put(speciesId, species);
+        }
+        for (long speciesId : ids) {
+            speciesMap.get(speciesId);
+        }
+        for (long speciesId : ids) {
+            speciesMap.remove(speciesId);
+        }
+        long primitive = (System.nanoTime() - start) / (3L * size);
+
+        return new long[] { boxed, primitive };
+    }
+
+}
@@ -0,0 +1,96 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package psoup.util;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import craterdog.primitives.Probability;
+import craterdog.smart.SmartObjectMapper;
+import java.io.IOException;
+import static org.junit.Assert.*;
+import org.junit.Test;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import psoup.*;
+import psoup.genes.*;
+
+
+public class GeneSerializerTest {
+
+    static XLogger logger = XLoggerFactory.getXLogger(GeneSerializerTest.class);
+
+    static private final SmartObjectMapper mapper = new SmartObjectMapper();
+
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        Branch branch = new Branch();
+        branch.probability = new Probability(0.25d);
+        branch.leftBranch = new Chop();
+        branch.rightBranch = new Copy();
+        Get get = new Get();
+        get.speciesId = -1234567890123L;
+        Mutate mutate = new Mutate();
+        mutate.probability = new Probability(0.75d);
+        Sequence creature = new Sequence();
+        creature.genes.add(branch);
+        creature.genes.add(get);
+        creature.genes.add(new Merge());
+        creature.genes.add(mutate);
+        creature.genes.add(new Put());
+        creature.genes.add(new Sequence());
+        logger.info("Creature: {}", creature);
+
+        Gene copy = mapper.readValue(creature.toString(), Gene.class);
+        assertEquals(creature, copy);
+        assertEquals(creature.getSpeciesId(), copy.getSpeciesId());
+        assertEquals(get.speciesId, ((Get) ((Sequence) copy).genes.get(1)).speciesId);
+        assertEquals(0.25d, ((Branch) ((Sequence) copy).genes.get(0)).probability.toDouble(), 0.0d);
+    }
+
+
+    @Test
+    public void testDeepCreature() throws IOException {
+        Gene creature = TestCreatures.deepCreature(new Put(), gene -> TestCreatures.sequence(new Get(), gene));
+        String json = creature.toString();
+
+        // only the top of the creature is indented so the output grows linearly
+        assertTrue("The creature took " + json.length() + " characters.", json.length() < 100 * creature.getNumberOfGenes());
+        Gene copy = mapper.readValue(json, Gene.class);
+        assertEquals(creature.getNumberOfGenes(), copy.getNumberOfGenes());
+        assertEquals(creature.getSpeciesId(), copy.getSpeciesId());
+        assertEquals(json, copy.toString());
+    }
+
+
+    @Test(expected = JsonMappingException.class)
+    public void testUnknownGeneType() throws IOException {
+        mapper.readValue("{ \"geneType\" : \"Clone\" }", Gene.class);
+    }
+
+
+    @Test
+    public void testNullProbability() throws IOException {
+        Chop chop = (Chop) mapper.readValue("{ \"geneType\" : \"Chop\", \"probability\" : null }", Gene.class);
+        assertNull(chop.probability);
+    }
+
+
+    @Test(expected = JsonMappingException.class)
+    public void testMalformedProbability() throws IOException {
+        mapper.readValue("{ \"geneType\" : \"Chop\", \"probability\" : [ 0.5 ] }", Gene.class);
+    }
+
+
+    @Test(expected = JsonMappingException.class)
+    public void testMalformedSpeciesId() throws IOException {
+        mapper.readValue("{ \"geneType\" : \"Get\", \"speciesId\" : \"many\" }", Gene.class);
+    }
+
+}
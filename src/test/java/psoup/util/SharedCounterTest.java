@@ -9,6 +9,9 @@
  ************************************************************************/
 package psoup.util;
 
+import craterdog.smart.SmartObjectMapper;
+import java.io.IOException;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 import org.junit.Test;
 import org.slf4j.ext.XLogger;
@@ -57,9 +60,9 @@ public class SharedCounterTest {
     @Test
     public void testIncrement() {
         SharedCounter counter = new SharedCounter();
-        int firstValue = counter.getCurrentValue();
+        long firstValue = counter.getCurrentValue();
         counter.increment();
-        int secondValue = counter.getCurrentValue();
+        long secondValue = counter.getCurrentValue();
         if (firstValue + 1 != secondValue) {
             fail("The SharedCounter increment() method failed to increment the value.");
         }
@@ -68,12 +71,66 @@ public class SharedCounterTest {
     @Test
     public void testDecrement() {
         SharedCounter counter = new SharedCounter();
-        int firstValue = counter.getCurrentValue();
+        long firstValue = counter.getCurrentValue();
         counter.decrement();
-        int secondValue = counter.getCurrentValue();
+        long secondValue = counter.getCurrentValue();
         if (firstValue - 1 != secondValue) {
             fail("The SharedCounter increment() method failed to decrement the value.");
         }
     }
 
+    @Test
+    public void testLargeValues() {
+        SharedCounter counter = new SharedCounter(Integer.MAX_VALUE);
+        counter.increment();
+        counter.increment(Integer.MAX_VALUE);
+        assertEquals(2L * Integer.MAX_VALUE + 1L, counter.getCurrentValue());
+        assertEquals(2L * Integer.MAX_VALUE + 1L, counter.getHighWaterMark());
+        assertEquals((long) Integer.MAX_VALUE, counter.getLowWaterMark());
+    }
+
+    @Test
+    public void testConcurrentAccess() throws InterruptedException {
+        final SharedCounter counter = new SharedCounter();
+        final int numberOfUpdates = 100000;
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            final boolean incrementing = i % 2 == 0;
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < numberOfUpdates; j++) {
+                    if (incrementing) {
+                        counter.increment();
+                    } else {
+                        counter.decrement();
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0L, counter.getCurrentValue());
+        if (counter.getHighWaterMark() < 0L || counter.getHighWaterMark() > 2L * numberOfUpdates) {
+            fail("The SharedCounter high water mark is out of range: " + counter.getHighWaterMark());
+        }
+        if (counter.getLowWaterMark() > 0L || counter.getLowWaterMark() < -2L * numberOfUpdates) {
+            fail("The SharedCounter low water mark is out of range: " + counter.getLowWaterMark());
+        }
+    }
+
+    @Test
+    public void testSerialization() throws IOException {
+        SharedCounter counter = new SharedCounter(5L);
+        counter.increment(3L);
+        counter.decrement(10L);
+        SmartObjectMapper mapper = new SmartObjectMapper();
+        String json = mapper.writeValueAsString(counter);
+        logger.debug("The counter serialized as: {}", json);
+        SharedCounter copy = mapper.readValue(json, SharedCounter.class);
+        assertEquals(counter.getCurrentValue(), copy.getCurrentValue());
+        assertEquals(counter.getLowWaterMark(), copy.getLowWaterMark());
+        assertEquals(counter.getHighWaterMark(), copy.getHighWaterMark());
+    }
+
 }
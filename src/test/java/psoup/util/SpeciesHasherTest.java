@@ -0,0 +1,163 @@
+/************************************************************************
+ * Copyright (c) Crater Dog Technologies(TM).  All Rights Reserved.     *
+ ************************************************************************
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.        *
+ *                                                                      *
+ * This code is free software; you can redistribute it and/or modify it *
+ * under the terms of The MIT License (MIT), as published by the Open   *
+ * Source Initiative. (See http://opensource.org/licenses/MIT)          *
+ ************************************************************************/
+package psoup.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import craterdog.primitives.Probability;
+import craterdog.smart.SmartObjectMapper;
+import java.util.*;
+import static org.junit.Assert.*;
+import org.junit.Test;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import psoup.*;
+import psoup.genes.*;
+import psoup.pool.*;
+
+
+public class SpeciesHasherTest {
+
+    static XLogger logger = XLoggerFactory.getXLogger(SpeciesHasherTest.class);
+
+    static private final SmartObjectMapper mapper = new SmartObjectMapper();
+
+    static {
+        mapper.addMixIn(Probability.class, UseNullAsValueMixIn.class);
+    }
+
+
+    @Test
+    public void testProbabilitiesIgnored() {
+        Branch branch1 = new Branch();
+        branch1.probability = new Probability(0.2d);
+        branch1.leftBranch = new Mutate();
+        Branch branch2 = new Branch();
+        branch2.probability = new Probability(0.9d);
+        branch2.leftBranch = new Mutate();
+        ((Mutate) branch2.leftBranch).probability = new Probability(0.1d);
+        assertEquals(branch1.getSpeciesId(), branch2.getSpeciesId());
+    }
+
+
+    @Test
+    public void testStructureDistinguished() {
+        Branch left = new Branch();
+        left.leftBranch = new Put();
+        Branch right = new Branch();
+        right.rightBranch = new Put();
+        assertNotEquals(left.getSpeciesId(), right.getSpeciesId());
+
+        Sequence forward = new Sequence();
+        forward.genes.add(new Chop());
+        forward.genes.add(new Copy());
+        Sequence backward = new Sequence();
+        backward.genes.add(new Copy());
+        backward.genes.add(new Chop());
+        assertNotEquals(forward.getSpeciesId(), backward.getSpeciesId());
+    }
+
+
+    @Test
+    public void testTargetSpeciesIgnored() {
+        Get get1 = new Get();
+        get1.speciesId = 1;
+        Get get2 = new Get();
+        get2.speciesId = 2;
+        assertEquals(get1.getSpeciesId(), get2.getSpeciesId());
+    }
+
+
+    @Test
+    public void testMatchesSerializedGrouping() throws JsonProcessingException {
+        Pool pool = new GenePool();
+        pool.initialize(100, new Probability(0.75), 5, new Probability(0.5));
+        Initializer initializer = new Initializer(pool, new Probability(0.75), 5);
+        Map<String, Long> idsByStructure = new HashMap<>();
+        Map<Long, String> structuresById = new HashMap<>();
+        for (int i = 0; i < 2000; i++) {
+            Gene creature = initializer.generateCreature();
+            // the species targeted by get genes are not part of the structure
+            String structure = mapper.writeValueAsString(creature).replaceAll("\"speciesId\" : -?\\d+", "");
+            long speciesId = creature.getSpeciesId();
+            Long previousId = idsByStructure.put(structure, speciesId);
+            if (previousId != null && previousId != speciesId) {
+                fail("Creatures with the same structure have different species ids: " + structure);
+            }
+            String previousStructure = structuresById.put(speciesId, structure);
+            if (previousStructure != null && !previousStructure.equals(structure)) {
+                fail("Creatures with different structures share a species id: " + structure);
+            }
+        }
+    }
+
+
+    @Test
+    public void testBenchmark() throws JsonProcessingException {
+        for (int depth = 1; depth <= 20; depth++) {
+            int iterations = 20000 / depth;
+            Gene[] creatures = new Gene[iterations];
+            for (int i = 0; i < iterations; i++) {
+                creatures[i] = generateCreature(depth);
+            }
+
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                mapper.writeValueAsString(creatures[i]).hashCode();
+            }
+            long serializing = (System.nanoTime() - start) / iterations;
+
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                creatures[i].getSpeciesId();
+            }
+            long hashing = (System.nanoTime() - start) / iterations;
+
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                creatures[i].getSpeciesId();
+            }
+            long cached = (System.nanoTime() - start) / iterations;
+
+            logger.info("Depth {}: serializing {} ns, hashing {} ns, cached {} ns per species id.", depth, serializing, hashing, cached);
+        }
+    }
+
+
+    private Gene generateCreature(int depth) {
+        Sequence sequence = new Sequence();
+        sequence.genes.add(new Get());
+        sequence.genes.add(new Mutate());
+        Branch branch = new Branch();
+        branch.leftBranch = depth > 1 ? generateCreature(depth - 1) : new Put();
+        branch.rightBranch = new Chop();
+        sequence.genes.add(branch);
+        return sequence;
+    }
+
+
+    @Test
+    public void testDeepCreature() {
+        Gene creature = TestCreatures.deepCreature(new Put(), TestCreatures::leftBranch);
+        assertEquals(TestCreatures.DEEP + 1, creature.getNumberOfGenes());
+
+        // a change deep down is picked up by every gene above it
+        long speciesId = creature.getSpeciesId();
+        Gene gene = creature;
+        for (int i = 0; i < TestCreatures.DEEP / 2; i++) {
+            gene.invalidateSpeciesId();
+            gene = ((Branch) gene).leftBranch;
+        }
+        ((Branch) gene).rightBranch = new Put();
+        gene.invalidateSpeciesId();
+        assertNotEquals(speciesId, creature.getSpeciesId());
+        assertEquals(TestCreatures.DEEP + 2, creature.getNumberOfGenes());
+    }
+
+}
@@ -26,11 +26,11 @@ public class UseNullAsValueMixInTest {
     public void testComparison() {
         Chop chop1 = new Chop();
         chop1.probability = new Probability(0.3d);
-        int id1 = chop1.getSpeciesId();
+        long id1 = chop1.getSpeciesId();
 
         Chop chop2 = new Chop();
         chop2.probability = new Probability(0.7d);
-        int id2 = chop2.getSpeciesId();
+        long id2 = chop2.getSpeciesId();
 
         assertEquals(id1, id2);
     }